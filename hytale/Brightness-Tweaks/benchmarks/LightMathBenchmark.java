@@ -0,0 +1,79 @@
+package org.example.plugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks for the primitive light math used by every sync. Run with {@code -prof gc} to confirm that none of
+ * these allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LightMathBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private final int[] brightnessLevels = new int[INPUTS];
+    private final int[] baselines = new int[INPUTS];
+    private final int[] tints = new int[INPUTS];
+    private final int[] warmthLevels = new int[INPUTS];
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        for (int i = 0; i < INPUTS; i++) {
+            brightnessLevels[i] = random.nextInt(LightMath.MAX_LEVEL + 1);
+            baselines[i] = random.nextInt(4) == 0
+                ? LightMath.NONE
+                : LightMath.pack(random.nextInt(8, 20), random.nextInt(256), random.nextInt(256), random.nextInt(256));
+            tints[i] = random.nextInt(3) == 0 ? PlayerLightState.NO_TINT : random.nextInt(0x1000000);
+            warmthLevels[i] = random.nextInt(3) == 0 ? LightMath.NO_WARMTH : random.nextInt(LightMath.MAX_LEVEL + 1);
+        }
+    }
+
+    @Benchmark
+    public int toLight() {
+        int i = next();
+        return LightMath.toLight(brightnessLevels[i], baselines[i], tints[i] & 0xFFFFFF, LightTuning.DEFAULT);
+    }
+
+    @Benchmark
+    public int maxLight() {
+        int i = next();
+        return LightMath.maxLight(baselines[i], tints[i]);
+    }
+
+    @Benchmark
+    public int resolveTintRgb() {
+        int i = next();
+        return LightMath.resolveTintRgb(baselines[i], tints[i], warmthLevels[i], LightTuning.DEFAULT);
+    }
+
+    @Benchmark
+    public int scaleTintChannel() {
+        int i = next();
+        return LightMath.scaleTintChannel(tints[i] & 0xFF, brightnessLevels[i], 255);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) & (INPUTS - 1);
+        return i;
+    }
+}
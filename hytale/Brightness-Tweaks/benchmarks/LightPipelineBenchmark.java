@@ -0,0 +1,183 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one world tick of the light pipeline for N boosted players under different inventory churn patterns.
+ * Hytale's {@code Store}, {@code Inventory} and {@code ItemContainer} cannot be built without a running server, so the
+ * containers are plain item-id arrays and the entity is a bare {@link BrightnessPreference}; the steps themselves are
+ * the {@link LightPipeline} helpers the service runs (belt filter, slot tracking, auto mode, density attenuation,
+ * cache lookup, governor radius cap), followed by the service's no-op write detection. A quarter of the players use
+ * auto mode, a fifth stand in crowded cells and a third run under a reduced governor cap.
+ * <p>
+ * Churn patterns:
+ * <ul>
+ *     <li>{@code steady}: nothing changes, every player is re-evaluated (worst case for dirty tracking)</li>
+ *     <li>{@code hotbar}: hotbar changes, which the belt filter must drop without touching the utility belt</li>
+ *     <li>{@code utility}: a non-light item moves through the utility belt</li>
+ *     <li>{@code torch-toggle}: the last torch is removed and put back</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LightPipelineBenchmark {
+
+    private static final int UTILITY_SLOTS = 4;
+    private static final String TORCH = "Furniture_Crude_Torch";
+    private static final String LANTERN = "Furniture_Lantern";
+    private static final String ROCK = "Rock_Stone";
+    private static final DensitySettings DENSITY = BrightnessConfig.defaults().densitySettings();
+    private static final GovernorSettings GOVERNOR = BrightnessConfig.defaults().governorSettings();
+    private static final LightPipeline.SlotClassifier<String[]> SLOTS =
+        (lightSources, container, slot) -> container[slot] == null ? LightSource.NONE : lightSources.classify(container[slot]);
+
+    @Param({"1", "100", "10000"})
+    public int players;
+
+    @Param({"steady", "hotbar", "utility", "torch-toggle"})
+    public String churn;
+
+    private LightProfile profile;
+    private BrightnessMetrics metrics;
+    private BrightnessPreference[] preferences;
+    private String[][] utilityBelts;
+    private String[][] hotbars;
+    private DynamicLightStandIn[] dynamicLights;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LightTuning tuning = LightTuning.DEFAULT;
+        profile = new LightProfile(
+            tuning,
+            new LightSourceRegistry(
+                Map.of(TORCH, LightSource.parse("12 #FFC890"), LANTERN, LightSource.parse("16 #FFE0B0"), ROCK, LightSource.NONE),
+                false
+            ),
+            new ColorLightCache(4096, tuning),
+            new LightPresets(Map.of(), tuning)
+        );
+        metrics = new BrightnessMetrics();
+        preferences = new BrightnessPreference[players];
+        utilityBelts = new String[players][UTILITY_SLOTS];
+        hotbars = new String[players][UTILITY_SLOTS];
+        dynamicLights = new DynamicLightStandIn[players];
+        random = new SplittableRandom(7L);
+
+        for (int i = 0; i < players; i++) {
+            BrightnessPreference preference = new BrightnessPreference();
+            float brightness = 0.25f + 0.75f * random.nextInt(16) / 15.0f;
+            int tint = random.nextInt(4) == 0 ? random.nextInt(0x1000000) : PlayerLightState.NO_TINT;
+            boolean auto = random.nextInt(4) == 0;
+            preference.setSettings(new PlayerLightState(brightness, tint, Float.NaN, 0.0f, auto, PlayerLightState.NO_PRESET));
+            if (auto) {
+                preference.setAmbient(0L, random.nextInt(16));
+            }
+            preference.setDensityFull(random.nextInt(5) != 0);
+            preference.setRadiusCap(random.nextInt(3) == 0 ? GOVERNOR.radiusCap(LightQuality.REDUCED) : LightMath.MAX_LIGHT_RADIUS);
+            preferences[i] = preference;
+            utilityBelts[i][0] = random.nextBoolean() ? TORCH : LANTERN;
+            utilityBelts[i][1] = ROCK;
+            hotbars[i][0] = ROCK;
+            dynamicLights[i] = new DynamicLightStandIn();
+        }
+    }
+
+    @Benchmark
+    public void tick(Blackhole blackhole) {
+        for (int i = 0; i < players; i++) {
+            BrightnessPreference preference = preferences[i];
+            churn(i, preference);
+            if (!preference.isDirty() && !"steady".equals(churn)) {
+                continue;
+            }
+            preference.consumeDirty();
+            blackhole.consume(apply(i, preference));
+        }
+    }
+
+    private void churn(int player, BrightnessPreference preference) {
+        String[] belt = utilityBelts[player];
+        switch (churn) {
+            case "hotbar" -> {
+                String[] hotbar = hotbars[player];
+                int slot = random.nextInt(UTILITY_SLOTS);
+                hotbar[slot] = hotbar[slot] == null ? TORCH : null;
+                onInventoryChange(player, preference, hotbar, slot);
+            }
+            case "utility" -> {
+                int slot = 1 + random.nextInt(UTILITY_SLOTS - 1);
+                belt[slot] = belt[slot] == null ? ROCK : null;
+                onInventoryChange(player, preference, belt, slot);
+            }
+            case "torch-toggle" -> {
+                belt[0] = belt[0] == null ? TORCH : null;
+                onInventoryChange(player, preference, belt, 0);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void onInventoryChange(int player, BrightnessPreference preference, String[] container, int slot) {
+        String[] belt = utilityBelts[player];
+        LightPipeline.BeltChange change = LightPipeline.beltChange(container, belt, hotbars[player], null, null, null);
+        if (change == LightPipeline.BeltChange.UNKNOWN) {
+            LightPipeline.forgetBelt(preference);
+        } else if (change == LightPipeline.BeltChange.SLOTS) {
+            LightPipeline.beltChanged(preference, profile, belt, UTILITY_SLOTS, SLOTS, 1L << slot, metrics);
+        }
+    }
+
+    private boolean apply(int player, BrightnessPreference preference) {
+        long torchSlots = LightPipeline.prepareBelt(preference, profile, utilityBelts[player], UTILITY_SLOTS, SLOTS, metrics);
+        if (torchSlots == 0L) {
+            preference.setApplied(LightMath.NONE, LightMath.NONE);
+            return false;
+        }
+
+        PlayerLightState settings = preference.settings();
+        LightTuning tuning = profile.tuning();
+        int baseline = preference.lightMix().combined();
+        int brightnessLevel = LightPipeline.brightnessLevel(settings, preference, tuning, DENSITY);
+        int tintRgb = LightMath.resolveTintRgb(baseline, settings.tintRgb(), LightMath.warmthLevel(settings.warmth()), tuning);
+        ColorLight target = LightPipeline.targetLight(profile, settings, preference, brightnessLevel, baseline, tintRgb, metrics);
+        int targetLight = LightMath.pack(target);
+        DynamicLightStandIn dynamicLight = dynamicLights[player];
+        boolean write = preference.appliedLight() != targetLight || LightMath.pack(dynamicLight.light) != targetLight;
+        if (write) {
+            dynamicLight.light = target;
+        }
+        preference.setApplied(baseline, targetLight);
+        return write;
+    }
+
+    /**
+     * Stand-in for the {@code DynamicLight} component: just the light it currently holds.
+     */
+    private static final class DynamicLightStandIn {
+
+        private ColorLight light;
+    }
+}
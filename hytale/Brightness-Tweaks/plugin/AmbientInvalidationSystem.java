@@ -0,0 +1,56 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.function.Function;
+
+/**
+ * Invalidates cached ambient light samples around a block a player placed or broke, since the change may open or close
+ * a path for sky or block light.
+ */
+final class AmbientInvalidationSystem<V> extends EntityEventSystem<EntityStore, V> {
+
+    private final ResourceType<EntityStore, AmbientLightCache> cacheType;
+    private final Function<V, Vector3i> targetBlock;
+
+    AmbientInvalidationSystem(
+        @Nonnull Class<V> eventType,
+        @Nonnull Function<V, Vector3i> targetBlock,
+        @Nonnull ResourceType<EntityStore, AmbientLightCache> cacheType
+    ) {
+        super(eventType);
+        this.cacheType = cacheType;
+        this.targetBlock = targetBlock;
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return Player.getComponentType();
+    }
+
+    @Override
+    public void handle(
+        int index,
+        @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer,
+        @Nonnull V event
+    ) {
+        Vector3i block = targetBlock.apply(event);
+        AmbientLightCache cache = store.getResource(cacheType);
+        if (block == null || cache == null) {
+            return;
+        }
+        cache.invalidateAround(block.getX(), block.getY(), block.getZ());
+    }
+}
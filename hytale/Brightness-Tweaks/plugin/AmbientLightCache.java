@@ -0,0 +1,162 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Per-world cache of ambient light levels (0 - 15) per 32-block chunk section. A section is sampled once on a coarse
+ * grid and shared by every player inside it; samples expire after a maximum age and are invalidated early by block
+ * changes in or next to the section. Full caches evict with a clock hand. World thread only.
+ */
+public final class AmbientLightCache implements Resource<EntityStore> {
+
+    static final int UNKNOWN = -1;
+
+    private static final int SECTION_SHIFT = 5;
+    private static final int SECTION_SIZE = 1 << SECTION_SHIFT;
+    /**
+     * Sample points per axis within a section.
+     */
+    private static final int SAMPLES_PER_AXIS = 4;
+    private static final int MAX_LIGHT = 15;
+    private LongIntMap index;
+    private long[] keys;
+    private byte[] levels;
+    private long[] sampledAtNanos;
+    private boolean[] stale;
+    private int used;
+    private int hand;
+
+    public AmbientLightCache(int capacity) {
+        resize(capacity);
+    }
+
+    /**
+     * Returns the section key for a block position.
+     */
+    static long sectionKey(int blockX, int blockY, int blockZ) {
+        return ((long) (blockX >> SECTION_SHIFT) & 0x1FFFFFL) << 42
+            | ((long) (blockY >> SECTION_SHIFT) & 0x1FFFFFL) << 21
+            | ((long) (blockZ >> SECTION_SHIFT) & 0x1FFFFFL);
+    }
+
+    /**
+     * Returns the cached ambient level of a section, sampling it if missing, stale or expired. Returns {@link #UNKNOWN}
+     * if the section's chunk is not loaded.
+     */
+    int level(@Nonnull World world, long sectionKey, long nowNanos, long maxAgeNanos, @Nonnull BrightnessMetrics metrics) {
+        int slot = index.get(sectionKey);
+        if (slot != LongIntMap.MISSING && !stale[slot] && nowNanos - sampledAtNanos[slot] < maxAgeNanos) {
+            metrics.ambientHits.increment();
+            return levels[slot];
+        }
+
+        int level = sample(world, sectionKey);
+        metrics.ambientSamples.increment();
+        if (level == UNKNOWN) {
+            return UNKNOWN;
+        }
+        if (slot == LongIntMap.MISSING) {
+            slot = allocate(sectionKey);
+        }
+        levels[slot] = (byte) level;
+        sampledAtNanos[slot] = nowNanos;
+        stale[slot] = false;
+        return level;
+    }
+
+    /**
+     * Marks the sections around a changed block stale. Light spreads into neighbouring sections, so the whole 3x3x3
+     * neighbourhood is invalidated.
+     */
+    void invalidateAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    long key = sectionKey(blockX + dx * SECTION_SIZE, blockY + dy * SECTION_SIZE, blockZ + dz * SECTION_SIZE);
+                    int slot = index.get(key);
+                    if (slot != LongIntMap.MISSING) {
+                        stale[slot] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    private int allocate(long sectionKey) {
+        int slot;
+        if (used < keys.length) {
+            slot = used++;
+        } else {
+            slot = hand;
+            hand = (hand + 1) % keys.length;
+            index.remove(keys[slot]);
+        }
+        keys[slot] = sectionKey;
+        index.put(sectionKey, slot);
+        return slot;
+    }
+
+    /**
+     * Averages the brighter of sky and block light over a coarse grid of points in the section.
+     */
+    private static int sample(@Nonnull World world, long sectionKey) {
+        int baseX = unpack(sectionKey >>> 42) << SECTION_SHIFT;
+        int baseY = unpack(sectionKey >>> 21) << SECTION_SHIFT;
+        int baseZ = unpack(sectionKey) << SECTION_SHIFT;
+        WorldChunk chunk = world.getChunkIfInMemory(ChunkUtil.indexChunkFromBlock(baseX, baseZ));
+        BlockChunk blockChunk = chunk == null ? null : chunk.getBlockChunk();
+        if (blockChunk == null) {
+            return UNKNOWN;
+        }
+
+        int step = SECTION_SIZE / SAMPLES_PER_AXIS;
+        int total = 0;
+        for (int x = step / 2; x < SECTION_SIZE; x += step) {
+            for (int y = step / 2; y < SECTION_SIZE; y += step) {
+                for (int z = step / 2; z < SECTION_SIZE; z += step) {
+                    int sky = blockChunk.getSkyLight(baseX + x, baseY + y, baseZ + z);
+                    int block = blockChunk.getBlockLightIntensity(baseX + x, baseY + y, baseZ + z);
+                    total += Math.min(MAX_LIGHT, Math.max(sky, block));
+                }
+            }
+        }
+        return Math.round(total / (float) (SAMPLES_PER_AXIS * SAMPLES_PER_AXIS * SAMPLES_PER_AXIS));
+    }
+
+    private static int unpack(long bits) {
+        // Sign-extend the 21-bit section coordinate.
+        return (int) ((bits & 0x1FFFFFL) << 43 >> 43);
+    }
+
+    private void resize(int capacity) {
+        index = new LongIntMap(capacity);
+        keys = new long[capacity];
+        levels = new byte[capacity];
+        sampledAtNanos = new long[capacity];
+        stale = new boolean[capacity];
+        Arrays.fill(stale, true);
+        used = 0;
+        hand = 0;
+    }
+
+    /**
+     * Samples describe one world's blocks, so a copy starts empty.
+     */
+    @Nonnull
+    @Override
+    public AmbientLightCache clone() {
+        return new AmbientLightCache(keys.length);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds the ambient light around auto-mode players into their preferences. The level is looked up from the world's
+ * {@link AmbientLightCache} when the player crosses a section boundary and otherwise every few ticks; only a changed
+ * level marks the preference dirty. Runs sequentially because the cache is shared per world.
+ */
+final class AmbientLightSystem extends EntityTickingSystem<EntityStore> {
+
+    /**
+     * Ticks between lookups while a player stays in one section, so expired or invalidated samples are picked up.
+     */
+    private static final int RECHECK_TICKS = 10;
+
+    private final ComponentType<EntityStore, BrightnessPreference> preferenceType;
+    private final ResourceType<EntityStore, AmbientLightCache> cacheType;
+    private final BrightnessMetrics metrics;
+    private final long maxAgeNanos;
+    private final Query<EntityStore> query;
+
+    AmbientLightSystem(@Nonnull BrightnessTypes types, @Nonnull AmbientSettings settings, @Nonnull BrightnessMetrics metrics) {
+        this.preferenceType = types.preference();
+        this.cacheType = types.ambientCache();
+        this.metrics = metrics;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(settings.maxAgeSeconds());
+        this.query = Query.and(preferenceType, TransformComponent.getComponentType());
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return query;
+    }
+
+    @Override
+    public void tick(
+        float dt,
+        int index,
+        @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        BrightnessPreference preference = archetypeChunk.getComponent(index, preferenceType);
+        if (preference == null || !preference.settings().auto() || !preference.settings().hasBrightness()) {
+            return;
+        }
+
+        TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+        Vector3d position = transform == null ? null : transform.getPosition();
+        if (position == null) {
+            return;
+        }
+        long section = AmbientLightCache.sectionKey(
+            (int) Math.floor(position.getX()),
+            (int) Math.floor(position.getY()),
+            (int) Math.floor(position.getZ())
+        );
+        if (section == preference.ambientSection() && !preference.ambientRecheckDue(RECHECK_TICKS)) {
+            return;
+        }
+
+        AmbientLightCache cache = store.getResource(cacheType);
+        World world = store.getExternalData().getWorld();
+        if (cache == null || world == null) {
+            return;
+        }
+        int level = cache.level(world, section, System.nanoTime(), maxAgeNanos, metrics);
+        if (level == AmbientLightCache.UNKNOWN) {
+            return;
+        }
+        int previous = preference.ambientLevel();
+        preference.setAmbient(section, level);
+        if (level != previous) {
+            preference.markDirty(false);
+        }
+    }
+}
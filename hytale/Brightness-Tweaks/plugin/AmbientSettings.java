@@ -0,0 +1,10 @@
+package org.example.plugin;
+
+/**
+ * Configuration of ambient light sampling for auto brightness.
+ *
+ * @param maxAgeSeconds how long a section sample stays valid without a block change nearby
+ * @param cacheSections number of chunk sections whose samples are kept per world
+ */
+record AmbientSettings(int maxAgeSeconds, int cacheSections) {
+}
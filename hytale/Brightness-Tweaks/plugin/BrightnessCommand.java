@@ -11,12 +11,29 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 
 import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 /**
  * Adjusts a player-centered dynamic light to mimic a torch-like brightness boost.
  */
 public class BrightnessCommand extends CommandBase {
+
+    /**
+     * Permission required by the operator subcommands. Set explicitly on each of them, so they never fall back to the
+     * adventure group of {@code /brightness} itself.
+     */
+    static final String ADMIN_PERMISSION = "brightnesstweaks.admin";
+
+    /**
+     * Help text is built once at registration, so it names no range; replies report the live range when it matters.
+     */
+    private static final String VALUE_DESCRIPTION = "Brightness, clamped to the configured range.";
+
     private final BrightnessService brightnessService;
 
     /**
@@ -29,6 +46,13 @@ public class BrightnessCommand extends CommandBase {
         this.addUsageVariant(new BrightnessValueCommand());
         this.addSubCommand(new BrightnessColorCommand());
         this.addSubCommand(new BrightnessWarmthCommand());
+        this.addSubCommand(new BrightnessFlickerCommand());
+        this.addSubCommand(new BrightnessAutoCommand());
+        this.addSubCommand(new BrightnessPresetCommand());
+        this.addSubCommand(new BrightnessStatsCommand());
+        this.addSubCommand(new BrightnessWorldCommand());
+        this.addSubCommand(new BrightnessAllCommand());
+        this.addSubCommand(new BrightnessResyncCommand());
     }
 
     @Override
@@ -56,7 +80,15 @@ public class BrightnessCommand extends CommandBase {
 
         UUID playerUuid = player.getUuid();
         brightnessService.setDesiredBrightness(playerUuid, value);
-        brightnessService.syncPlayer(world, playerUuid, true);
+        Message confirmation = null;
+        LightTuning tuning = brightnessService.lightProfile().tuning();
+        if (value != null && LightMath.clamp(value, tuning.minBrightness(), tuning.maxBrightness()) != value) {
+            confirmation = Message.raw(
+                "Brightness " + value + " is outside the configured range " + tuning.minBrightness() + " - "
+                    + tuning.maxBrightness() + "; it was clamped."
+            );
+        }
+        brightnessService.syncPlayer(world, player, true, confirmation);
     }
 
     private void applyTintRgb(@Nonnull CommandContext ctx, Integer rgb) {
@@ -80,12 +112,12 @@ public class BrightnessCommand extends CommandBase {
         UUID playerUuid = player.getUuid();
         int rgbMasked = rgb & 0xFFFFFF;
         brightnessService.setDesiredTintRgb(playerUuid, rgbMasked);
-        brightnessService.syncPlayer(world, playerUuid, false);
 
         int red = (rgbMasked >> 16) & 0xFF;
         int green = (rgbMasked >> 8) & 0xFF;
         int blue = rgbMasked & 0xFF;
-        ctx.sendMessage(Message.raw("Brightness tint set to rgb " + red + "/" + green + "/" + blue + "."));
+        Message confirmation = Message.raw("Brightness tint set to rgb " + red + "/" + green + "/" + blue + ".");
+        brightnessService.syncPlayer(world, player, false, confirmation);
     }
 
     private void clearTintRgb(@Nonnull CommandContext ctx) {
@@ -108,8 +140,8 @@ public class BrightnessCommand extends CommandBase {
 
         UUID playerUuid = player.getUuid();
         brightnessService.setDesiredTintRgb(playerUuid, null);
-        brightnessService.syncPlayer(world, playerUuid, false);
-        ctx.sendMessage(Message.raw("Brightness tint cleared (reverts to the torch's default tint)."));
+        Message confirmation = Message.raw("Brightness tint cleared (reverts to the torch's default tint).");
+        brightnessService.syncPlayer(world, player, false, confirmation);
     }
 
     private void applyWarmth(@Nonnull CommandContext ctx, Float warmth01) {
@@ -133,8 +165,8 @@ public class BrightnessCommand extends CommandBase {
         UUID playerUuid = player.getUuid();
         float clamped = Math.max(0.0f, Math.min(1.0f, warmth01));
         brightnessService.setDesiredWarmth(playerUuid, clamped);
-        brightnessService.syncPlayer(world, playerUuid, false);
-        ctx.sendMessage(Message.raw("Brightness warmth set to " + clamped + " (0 = torch tint, 1 = warmer torch tint)."));
+        Message confirmation = Message.raw("Brightness warmth set to " + clamped + " (0 = torch tint, 1 = warmer torch tint).");
+        brightnessService.syncPlayer(world, player, false, confirmation);
     }
 
     private void clearWarmth(@Nonnull CommandContext ctx) {
@@ -157,8 +189,167 @@ public class BrightnessCommand extends CommandBase {
 
         UUID playerUuid = player.getUuid();
         brightnessService.setDesiredWarmth(playerUuid, null);
-        brightnessService.syncPlayer(world, playerUuid, false);
-        ctx.sendMessage(Message.raw("Brightness warmth cleared (reverts to the torch's default tint)."));
+        Message confirmation = Message.raw("Brightness warmth cleared (reverts to the torch's default tint).");
+        brightnessService.syncPlayer(world, player, false, confirmation);
+    }
+
+    private void applyFlicker(@Nonnull CommandContext ctx, Float amount01) {
+        if (!ctx.isPlayer()) {
+            ctx.sendMessage(Message.raw("This command can only be used by a player."));
+            return;
+        }
+
+        PlayerRef player = Universe.get().getPlayer(ctx.sender().getUuid());
+        if (player == null) {
+            ctx.sendMessage(Message.raw("Unable to find your player session."));
+            return;
+        }
+
+        World world = Universe.get().getWorld(player.getWorldUuid());
+        if (world == null) {
+            ctx.sendMessage(Message.raw("Unable to find your current world."));
+            return;
+        }
+
+        UUID playerUuid = player.getUuid();
+        brightnessService.setDesiredFlicker(playerUuid, amount01);
+        Message confirmation;
+        if (amount01 == null) {
+            confirmation = Message.raw("Brightness flicker disabled (steady light).");
+        } else {
+            float clamped = Math.max(0.0f, Math.min(1.0f, amount01));
+            confirmation = Message.raw("Brightness flicker set to " + clamped + " (0 = steady, 1 = strong flicker).");
+        }
+        brightnessService.syncPlayer(world, player, false, confirmation);
+    }
+
+    private void toggleAuto(@Nonnull CommandContext ctx) {
+        if (!ctx.isPlayer()) {
+            ctx.sendMessage(Message.raw("This command can only be used by a player."));
+            return;
+        }
+
+        PlayerRef player = Universe.get().getPlayer(ctx.sender().getUuid());
+        if (player == null) {
+            ctx.sendMessage(Message.raw("Unable to find your player session."));
+            return;
+        }
+
+        World world = Universe.get().getWorld(player.getWorldUuid());
+        if (world == null) {
+            ctx.sendMessage(Message.raw("Unable to find your current world."));
+            return;
+        }
+
+        UUID playerUuid = player.getUuid();
+        boolean auto = !brightnessService.isAuto(playerUuid);
+        brightnessService.setDesiredAuto(playerUuid, auto);
+        Message confirmation = auto
+            ? Message.raw("Auto brightness enabled: the boost fades out in well-lit areas.")
+            : Message.raw("Auto brightness disabled.");
+        brightnessService.syncPlayer(world, player, false, confirmation);
+    }
+
+    private void listPresets(@Nonnull CommandContext ctx) {
+        List<String> names = brightnessService.lightProfile().presets().names();
+        if (names.isEmpty()) {
+            ctx.sendMessage(Message.raw("No light presets are configured."));
+        } else {
+            ctx.sendMessage(Message.raw("Light presets: " + String.join(", ", names) + ". Use /brightness preset <name>."));
+        }
+    }
+
+    private void applyPreset(@Nonnull CommandContext ctx, @Nonnull String name) {
+        if (!ctx.isPlayer()) {
+            ctx.sendMessage(Message.raw("This command can only be used by a player."));
+            return;
+        }
+
+        LightPreset preset = brightnessService.lightProfile().presets().byName(name.trim().toLowerCase(Locale.ROOT));
+        if (preset == null) {
+            ctx.sendMessage(Message.raw("Unknown light preset '" + name + "'."));
+            listPresets(ctx);
+            return;
+        }
+
+        PlayerRef player = Universe.get().getPlayer(ctx.sender().getUuid());
+        if (player == null) {
+            ctx.sendMessage(Message.raw("Unable to find your player session."));
+            return;
+        }
+
+        World world = Universe.get().getWorld(player.getWorldUuid());
+        if (world == null) {
+            ctx.sendMessage(Message.raw("Unable to find your current world."));
+            return;
+        }
+
+        brightnessService.setDesiredPreset(player.getUuid(), preset);
+        brightnessService.syncPlayer(world, player, false, Message.raw("Brightness preset '" + preset.name() + "' applied."));
+    }
+
+    private void applyWorldBrightness(@Nonnull CommandContext ctx, Float value) {
+        if (!ctx.isPlayer()) {
+            ctx.sendMessage(Message.raw("This command can only be used by a player; use /brightness all from the console."));
+            return;
+        }
+
+        PlayerRef player = Universe.get().getPlayer(ctx.sender().getUuid());
+        if (player == null) {
+            ctx.sendMessage(Message.raw("Unable to find your player session."));
+            return;
+        }
+
+        applyBulkBrightness(ctx, BrightnessService.playersByWorld(player.getWorldUuid()), value);
+    }
+
+    private void applyBulkBrightness(@Nonnull CommandContext ctx, @Nonnull Map<World, List<UUID>> targets, Float value) {
+        float brightness = value == null ? Float.NaN : value;
+        LightTuning tuning = brightnessService.lightProfile().tuning();
+        String action = value == null
+            ? "Brightness boost cleared"
+            : "Brightness set to " + LightMath.clamp(value, tuning.minBrightness(), tuning.maxBrightness())
+                + " (range " + tuning.minBrightness() + " - " + tuning.maxBrightness() + ")";
+        runBulk(ctx, targets, state -> state.withBrightness(brightness), false, action);
+    }
+
+    private void runBulk(
+        @Nonnull CommandContext ctx,
+        @Nonnull Map<World, List<UUID>> targets,
+        @Nonnull UnaryOperator<PlayerLightState> update,
+        boolean rescan,
+        @Nonnull String action
+    ) {
+        if (targets.isEmpty()) {
+            ctx.sendMessage(Message.raw("No players to update."));
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        brightnessService.bulkSync(targets, update, rescan).whenComplete((results, error) -> {
+            if (error != null) {
+                ctx.sendMessage(Message.raw("Bulk brightness update failed: " + error.getMessage()));
+                return;
+            }
+            int players = 0;
+            int failures = 0;
+            for (BulkSyncResult result : results) {
+                players += result.players();
+                failures += result.failures();
+            }
+            long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            ctx.sendMessage(Message.raw(
+                action + " for " + (players - failures) + "/" + players + " players in " + results.size() + " worlds ("
+                    + totalMillis + " ms)."
+            ));
+            for (BulkSyncResult result : results) {
+                ctx.sendMessage(Message.raw(
+                    "  " + result.worldName() + ": " + result.updated() + "/" + result.players() + " in "
+                        + TimeUnit.NANOSECONDS.toMicros(result.elapsedNanos()) / 1000.0 + " ms"
+                        + (result.failures() > 0 ? ", " + result.failures() + " failed" : "")
+                ));
+            }
+        });
     }
 
     private final class BrightnessValueCommand extends CommandBase {
@@ -168,11 +359,7 @@ public class BrightnessCommand extends CommandBase {
         private BrightnessValueCommand() {
             super("Adjusts a torch-like light around your player.");
             this.setPermissionGroup(GameMode.Adventure);
-            this.valueArg = this.withRequiredArg(
-                "value",
-                "Brightness (" + BrightnessService.MIN_BRIGHTNESS + " - " + BrightnessService.MAX_BRIGHTNESS + ").",
-                ArgTypes.FLOAT
-            );
+            this.valueArg = this.withRequiredArg("value", VALUE_DESCRIPTION, ArgTypes.FLOAT);
         }
 
         @Override
@@ -209,6 +396,180 @@ public class BrightnessCommand extends CommandBase {
         }
     }
 
+    /**
+     * Prints runtime metrics. Requires {@link #ADMIN_PERMISSION}.
+     */
+    private final class BrightnessStatsCommand extends CommandBase {
+
+        private BrightnessStatsCommand() {
+            super("stats", "Shows brightness plugin runtime metrics.");
+            this.requirePermission(ADMIN_PERMISSION);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            for (String line : brightnessService.statsReport()) {
+                ctx.sendMessage(Message.raw(line));
+            }
+        }
+    }
+
+    private final class BrightnessFlickerCommand extends CommandBase {
+
+        private BrightnessFlickerCommand() {
+            super("flicker", "Makes the boosted light flicker like a flame (0.0 - 1.0).");
+            this.setPermissionGroup(GameMode.Adventure);
+            this.addUsageVariant(new BrightnessFlickerValueCommand());
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyFlicker(ctx, null);
+        }
+    }
+
+    /**
+     * Sets or clears the boost for every player in the caller's world. Requires {@link #ADMIN_PERMISSION}.
+     */
+    private final class BrightnessWorldCommand extends CommandBase {
+
+        private BrightnessWorldCommand() {
+            super("world", "Sets the brightness boost for every player in your world.");
+            this.requirePermission(ADMIN_PERMISSION);
+            this.addUsageVariant(new BrightnessWorldValueCommand());
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyWorldBrightness(ctx, null);
+        }
+    }
+
+    private final class BrightnessWorldValueCommand extends CommandBase {
+
+        private final RequiredArg<Float> valueArg;
+
+        private BrightnessWorldValueCommand() {
+            super("Sets the brightness boost for every player in your world.");
+            this.requirePermission(ADMIN_PERMISSION);
+            this.valueArg = this.withRequiredArg("value", VALUE_DESCRIPTION, ArgTypes.FLOAT);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyWorldBrightness(ctx, valueArg.get(ctx));
+        }
+    }
+
+    /**
+     * Sets or clears the boost for every online player, one batch per world. Requires {@link #ADMIN_PERMISSION}.
+     */
+    private final class BrightnessAllCommand extends CommandBase {
+
+        private BrightnessAllCommand() {
+            super("all", "Sets the brightness boost for every online player.");
+            this.requirePermission(ADMIN_PERMISSION);
+            this.addUsageVariant(new BrightnessAllValueCommand());
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyBulkBrightness(ctx, BrightnessService.playersByWorld(null), null);
+        }
+    }
+
+    private final class BrightnessAllValueCommand extends CommandBase {
+
+        private final RequiredArg<Float> valueArg;
+
+        private BrightnessAllValueCommand() {
+            super("Sets the brightness boost for every online player.");
+            this.requirePermission(ADMIN_PERMISSION);
+            this.valueArg = this.withRequiredArg("value", VALUE_DESCRIPTION, ArgTypes.FLOAT);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyBulkBrightness(ctx, BrightnessService.playersByWorld(null), valueArg.get(ctx));
+        }
+    }
+
+    /**
+     * Re-pushes every online player's settings and rescans their utility belts. Requires {@link #ADMIN_PERMISSION}.
+     */
+    private final class BrightnessResyncCommand extends CommandBase {
+
+        private BrightnessResyncCommand() {
+            super("resync", "Re-applies brightness settings for every online player.");
+            this.requirePermission(ADMIN_PERMISSION);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            Map<World, List<UUID>> players = BrightnessService.playersByWorld(null);
+            BrightnessCommand.this.runBulk(ctx, players, UnaryOperator.identity(), true, "Brightness resynced");
+        }
+    }
+
+    private final class BrightnessAutoCommand extends CommandBase {
+
+        private BrightnessAutoCommand() {
+            super("auto", "Toggles scaling the boost with how dark your surroundings are.");
+            this.setPermissionGroup(GameMode.Adventure);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.toggleAuto(ctx);
+        }
+    }
+
+    private final class BrightnessFlickerValueCommand extends CommandBase {
+
+        private final RequiredArg<Float> amountArg;
+
+        private BrightnessFlickerValueCommand() {
+            super("Makes the boosted light flicker like a flame (0.0 - 1.0).");
+            this.setPermissionGroup(GameMode.Adventure);
+            this.amountArg = this.withRequiredArg("amount", "Flicker from 0.0 (steady) to 1.0 (strong).", ArgTypes.FLOAT);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyFlicker(ctx, amountArg.get(ctx));
+        }
+    }
+
+    private final class BrightnessPresetCommand extends CommandBase {
+
+        private BrightnessPresetCommand() {
+            super("preset", "Lists the server's light presets.");
+            this.setPermissionGroup(GameMode.Adventure);
+            this.addUsageVariant(new BrightnessPresetValueCommand());
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.listPresets(ctx);
+        }
+    }
+
+    private final class BrightnessPresetValueCommand extends CommandBase {
+
+        private final RequiredArg<String> nameArg;
+
+        private BrightnessPresetValueCommand() {
+            super("Applies one of the server's light presets.");
+            this.setPermissionGroup(GameMode.Adventure);
+            this.nameArg = this.withRequiredArg("name", "Preset name, for example cave.", ArgTypes.STRING);
+        }
+
+        @Override
+        protected void executeSync(@Nonnull CommandContext ctx) {
+            BrightnessCommand.this.applyPreset(ctx, nameArg.get(ctx));
+        }
+    }
+
     private final class BrightnessColorValueCommand extends CommandBase {
 
         private final RequiredArg<Integer> colorArg;
@@ -0,0 +1,574 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Plugin settings loaded from {@code brightness-tweaks.properties} in the plugin data directory. A commented default
+ * file is written on first start. Instances are immutable; a reload parses a new one.
+ */
+final class BrightnessConfig {
+
+    static final String FILE_NAME = "brightness-tweaks.properties";
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final String LIGHT_SOURCE_PREFIX = "light-source.";
+    private static final String PRESET_PREFIX = "preset.";
+    private static final String ITEM_ASSET_LIGHTS = "item-asset-lights";
+    private static final String LIGHT_CACHE_SIZE = "light-cache-size";
+    private static final String PREFERENCES_FLUSH_SECONDS = "preferences-flush-seconds";
+    private static final String STATS_LOG_SECONDS = "stats-log-seconds";
+    private static final String FADE_IN_MILLIS = "fade-in-millis";
+    private static final String FADE_IN_CURVE = "fade-in-curve";
+    private static final String FADE_OUT_MILLIS = "fade-out-millis";
+    private static final String FADE_OUT_CURVE = "fade-out-curve";
+    private static final String FLICKER_MAX_UPDATES_PER_TICK = "flicker-max-updates-per-tick";
+    private static final String FLICKER_UPDATE_TICKS = "flicker-update-ticks";
+    private static final String GOVERNOR_ENABLED = "governor-enabled";
+    private static final String GOVERNOR_TARGET_TICK_MILLIS = "governor-target-tick-millis";
+    private static final String GOVERNOR_REDUCED_RADIUS = "governor-reduced-radius";
+    private static final String GOVERNOR_MINIMAL_RADIUS = "governor-minimal-radius";
+    private static final String DENSITY_LOD_ENABLED = "density-lod-enabled";
+    private static final String DENSITY_CELL_SIZE = "density-cell-size";
+    private static final String DENSITY_FULL_LIGHTS_PER_CELL = "density-full-lights-per-cell";
+    private static final String DENSITY_ATTENUATION = "density-attenuation";
+    private static final String AMBIENT_MAX_AGE_SECONDS = "ambient-max-age-seconds";
+    private static final String AMBIENT_CACHE_SECTIONS = "ambient-cache-sections";
+    private static final String CONFIG_WATCH = "config-watch";
+    private static final String RECONNECT_GRACE_SECONDS = "reconnect-grace-seconds";
+    private static final String RECONNECT_GRACE_MAX_PLAYERS = "reconnect-grace-max-players";
+    private static final String MIN_BRIGHTNESS = "min-brightness";
+    private static final String MAX_BRIGHTNESS = "max-brightness";
+    private static final String MIN_LIGHT_RADIUS = "min-light-radius";
+    private static final String MAX_LIGHT_RADIUS = "max-light-radius";
+    private static final String MAX_LIGHT_INTENSITY = "max-light-intensity";
+    private static final String WARM_TINT = "warm-tint";
+
+    private static final int DEFAULT_LIGHT_CACHE_SIZE = 4096;
+    private static final int DEFAULT_PREFERENCES_FLUSH_SECONDS = 5;
+    private static final int DEFAULT_STATS_LOG_SECONDS = 0;
+    private static final int DEFAULT_RECONNECT_GRACE_SECONDS = 30;
+    private static final int DEFAULT_RECONNECT_GRACE_MAX_PLAYERS = 10_000;
+    private static final int DEFAULT_FADE_IN_MILLIS = 400;
+    private static final int DEFAULT_FADE_OUT_MILLIS = 600;
+    private static final FlickerSettings DEFAULT_FLICKER = new FlickerSettings(64, 3);
+    private static final GovernorSettings DEFAULT_GOVERNOR = new GovernorSettings(true, 33, 24, 16);
+    private static final DensitySettings DEFAULT_DENSITY = new DensitySettings(true, 16, 4, 0.35f);
+    private static final AmbientSettings DEFAULT_AMBIENT = new AmbientSettings(10, 4096);
+    private static final FadeSettings DEFAULT_FADE = new FadeSettings(
+        DEFAULT_FADE_IN_MILLIS / 1000.0f,
+        FadeCurve.EASE_OUT,
+        DEFAULT_FADE_OUT_MILLIS / 1000.0f,
+        FadeCurve.SMOOTHSTEP
+    );
+
+    private static final String DEFAULT_CONTENTS = """
+        # Brightness Tweaks configuration.
+        #
+        # Reload this file automatically when it is saved. Light tuning, light sources, presets and light-cache-size
+        # apply right away and active boosts are re-synced; all other settings are read at startup only.
+        config-watch=true
+        #
+        # Boost curve: brightness values min-brightness .. max-brightness map onto lights growing from the torch (or
+        # min-light-radius without one) up to max-light-radius and max-light-intensity (1 - 255). Warmth blends the
+        # tint toward warm-tint.
+        min-brightness=0.01
+        max-brightness=1.0
+        min-light-radius=6
+        max-light-radius=32
+        max-light-intensity=255
+        warm-tint=#FFDCAA
+        #
+        # Items whose asset defines a light (torches, lanterns, ...) count as light sources for the boost.
+        item-asset-lights=true
+        #
+        # Extra or overriding light sources, as light-source.<ItemId>=<radius> #RRGGBB.
+        # Use 'none' to stop an item from counting as a light source.
+        # light-source.Example_Glowstick=10 #80FFB0
+        #
+        # Light presets for /brightness preset <name>, as preset.<name>=<brightness> [#RRGGBB | warmth <0.0-1.0>].
+        preset.cave=1.0
+        preset.ember=0.5 warmth 1.0
+        preset.moonlight=0.7 #A8C0FF
+        #
+        # Number of computed lights kept in the shared cache. Raise it if the cache hit rate drops on busy servers.
+        light-cache-size=4096
+        #
+        # How often changed player settings are written to preferences.bin. A crash loses at most this much.
+        preferences-flush-seconds=5
+        #
+        # Log the /brightness stats report every this many seconds. 0 disables the periodic log.
+        stats-log-seconds=0
+        #
+        # Players who reconnect within this many seconds get their light back at once, without a utility-belt rescan
+        # or fade-in. At most reconnect-grace-max-players departed players are remembered. 0 disables the grace period.
+        reconnect-grace-seconds=30
+        reconnect-grace-max-players=10000
+        #
+        # Fade durations (0 = instant) and curves (linear, smoothstep, ease-in, ease-out) for boost changes.
+        # Fade-in covers lights getting larger; fade-out covers dimming and losing the last torch.
+        fade-in-millis=400
+        fade-in-curve=ease-out
+        fade-out-millis=600
+        fade-out-curve=smoothstep
+        #
+        # Flicker limits per world: at most this many light updates per tick, and one update per player every N ticks.
+        flicker-max-updates-per-tick=64
+        flicker-update-ticks=3
+        #
+        # Load governor: when a world's average tick interval stays well above the target (or syncs pile up), boost
+        # radius is capped and flicker slows down; full quality returns after ~10s of calm. Torches never drop below
+        # their normal radius.
+        governor-enabled=true
+        governor-target-tick-millis=33
+        governor-reduced-radius=24
+        governor-minimal-radius=16
+        #
+        # Density LOD: boosted players are bucketed into cubes of density-cell-size blocks. Only the first
+        # density-full-lights-per-cell players in a cube get a full-strength boost; the rest are scaled by
+        # density-attenuation (0.0 - 1.0), never dropping below the normal torch light.
+        density-lod-enabled=true
+        density-cell-size=16
+        density-full-lights-per-cell=4
+        density-attenuation=0.35
+        #
+        # Auto mode (/brightness auto) samples the ambient light per 32-block chunk section. Samples are shared by
+        # everyone in the section, refreshed after ambient-max-age-seconds (daylight changes) and dropped early when
+        # a player places or breaks a block nearby. ambient-cache-sections bounds the samples kept per world.
+        ambient-max-age-seconds=10
+        ambient-cache-sections=4096
+        """;
+
+    private final boolean configWatch;
+    private final LightTuning lightTuning;
+    private final Map<String, LightSource> lightSources;
+    private final Map<String, PlayerLightState> presets;
+    private final boolean itemAssetLights;
+    private final int lightCacheSize;
+    private final int preferencesFlushSeconds;
+    private final int statsLogSeconds;
+    private final int reconnectGraceSeconds;
+    private final int reconnectGraceMaxPlayers;
+    private final FadeSettings fadeSettings;
+    private final FlickerSettings flickerSettings;
+    private final GovernorSettings governorSettings;
+    private final DensitySettings densitySettings;
+    private final AmbientSettings ambientSettings;
+
+    private BrightnessConfig(
+        boolean configWatch,
+        @Nonnull LightTuning lightTuning,
+        @Nonnull Map<String, LightSource> lightSources,
+        @Nonnull Map<String, PlayerLightState> presets,
+        boolean itemAssetLights,
+        int lightCacheSize,
+        int preferencesFlushSeconds,
+        int statsLogSeconds,
+        int reconnectGraceSeconds,
+        int reconnectGraceMaxPlayers,
+        @Nonnull FadeSettings fadeSettings,
+        @Nonnull FlickerSettings flickerSettings,
+        @Nonnull GovernorSettings governorSettings,
+        @Nonnull DensitySettings densitySettings,
+        @Nonnull AmbientSettings ambientSettings
+    ) {
+        this.configWatch = configWatch;
+        this.lightTuning = lightTuning;
+        this.lightSources = Map.copyOf(lightSources);
+        this.presets = Map.copyOf(presets);
+        this.itemAssetLights = itemAssetLights;
+        this.lightCacheSize = lightCacheSize;
+        this.preferencesFlushSeconds = preferencesFlushSeconds;
+        this.statsLogSeconds = statsLogSeconds;
+        this.reconnectGraceSeconds = reconnectGraceSeconds;
+        this.reconnectGraceMaxPlayers = reconnectGraceMaxPlayers;
+        this.fadeSettings = fadeSettings;
+        this.flickerSettings = flickerSettings;
+        this.governorSettings = governorSettings;
+        this.densitySettings = densitySettings;
+        this.ambientSettings = ambientSettings;
+    }
+
+    static BrightnessConfig defaults() {
+        return new BrightnessConfig(
+            true,
+            LightTuning.DEFAULT,
+            Map.of(),
+            Map.of(),
+            true,
+            DEFAULT_LIGHT_CACHE_SIZE,
+            DEFAULT_PREFERENCES_FLUSH_SECONDS,
+            DEFAULT_STATS_LOG_SECONDS,
+            DEFAULT_RECONNECT_GRACE_SECONDS,
+            DEFAULT_RECONNECT_GRACE_MAX_PLAYERS,
+            DEFAULT_FADE,
+            DEFAULT_FLICKER,
+            DEFAULT_GOVERNOR,
+            DEFAULT_DENSITY,
+            DEFAULT_AMBIENT
+        );
+    }
+
+    /**
+     * Loads the config from the data directory, writing the default file if none exists. Invalid entries are logged
+     * and skipped; an unreadable file falls back to defaults.
+     */
+    static BrightnessConfig load(@Nonnull Path dataDirectory) {
+        Path file = dataDirectory.resolve(FILE_NAME);
+        try {
+            if (Files.notExists(file)) {
+                Files.createDirectories(dataDirectory);
+                Files.writeString(file, DEFAULT_CONTENTS);
+            }
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Unable to write default config " + file);
+            return defaults();
+        }
+
+        try {
+            return parse(readProperties(file), new Problems(false));
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Unable to read config " + file + ", using defaults");
+            return defaults();
+        }
+    }
+
+    /**
+     * Reads and parses the config file. Unlike {@link #load}, nothing falls back to defaults: a missing or unreadable
+     * file and any invalid entry are reported to the caller, so a reload never resets a running server by accident.
+     *
+     * @throws IllegalArgumentException listing every invalid entry
+     */
+    static BrightnessConfig read(@Nonnull Path file) throws IOException {
+        Problems problems = new Problems(true);
+        BrightnessConfig config = parse(readProperties(file), problems);
+        problems.throwIfAny();
+        return config;
+    }
+
+    @Nonnull
+    private static Properties readProperties(@Nonnull Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static BrightnessConfig parse(@Nonnull Properties properties, @Nonnull Problems problems) {
+        Map<String, LightSource> lightSources = new HashMap<>();
+        Map<String, PlayerLightState> presets = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                if (key.startsWith(LIGHT_SOURCE_PREFIX)) {
+                    String itemId = key.substring(LIGHT_SOURCE_PREFIX.length());
+                    lightSources.put(itemId, LightSource.parse(properties.getProperty(key)));
+                } else if (key.startsWith(PRESET_PREFIX)) {
+                    String name = key.substring(PRESET_PREFIX.length()).toLowerCase(Locale.ROOT);
+                    presets.put(name, LightPreset.parse(properties.getProperty(key)));
+                }
+            } catch (IllegalArgumentException e) {
+                problems.report(key + ": " + e.getMessage());
+            }
+        }
+        if (presets.size() > LightPresets.MAX_PRESETS) {
+            LOGGER.atWarning().log("Only the first " + LightPresets.MAX_PRESETS + " presets (by name) are used");
+        }
+
+        boolean configWatch = Boolean.parseBoolean(properties.getProperty(CONFIG_WATCH, "true").trim());
+        LightTuning lightTuning = parseTuning(properties, problems);
+        boolean itemAssetLights = Boolean.parseBoolean(properties.getProperty(ITEM_ASSET_LIGHTS, "true").trim());
+        int lightCacheSize = parseInt(properties, problems, LIGHT_CACHE_SIZE, DEFAULT_LIGHT_CACHE_SIZE, 64, 1 << 20);
+        int preferencesFlushSeconds = parseInt(properties, problems, PREFERENCES_FLUSH_SECONDS, DEFAULT_PREFERENCES_FLUSH_SECONDS, 1, 300);
+        int statsLogSeconds = parseInt(properties, problems, STATS_LOG_SECONDS, DEFAULT_STATS_LOG_SECONDS, 0, 86_400);
+        int reconnectGraceSeconds = parseInt(properties, problems, RECONNECT_GRACE_SECONDS, DEFAULT_RECONNECT_GRACE_SECONDS, 0, 3_600);
+        int reconnectGraceMaxPlayers = parseInt(
+            properties,
+            problems,
+            RECONNECT_GRACE_MAX_PLAYERS,
+            DEFAULT_RECONNECT_GRACE_MAX_PLAYERS,
+            0,
+            1_000_000
+        );
+        FadeSettings fadeSettings = new FadeSettings(
+            parseInt(properties, problems, FADE_IN_MILLIS, DEFAULT_FADE_IN_MILLIS, 0, 10_000) / 1000.0f,
+            parseCurve(properties, problems, FADE_IN_CURVE, DEFAULT_FADE.fadeInCurve()),
+            parseInt(properties, problems, FADE_OUT_MILLIS, DEFAULT_FADE_OUT_MILLIS, 0, 10_000) / 1000.0f,
+            parseCurve(properties, problems, FADE_OUT_CURVE, DEFAULT_FADE.fadeOutCurve())
+        );
+        FlickerSettings flickerSettings = new FlickerSettings(
+            parseInt(properties, problems, FLICKER_MAX_UPDATES_PER_TICK, DEFAULT_FLICKER.maxUpdatesPerTick(), 1, 10_000),
+            parseInt(properties, problems, FLICKER_UPDATE_TICKS, DEFAULT_FLICKER.updateIntervalTicks(), 1, 100)
+        );
+        int reducedRadius = parseInt(
+            properties,
+            problems,
+            GOVERNOR_REDUCED_RADIUS,
+            DEFAULT_GOVERNOR.reducedRadius(),
+            LightTuning.DEFAULT.minRadius(),
+            LightMath.MAX_LIGHT_RADIUS
+        );
+        GovernorSettings governorSettings = new GovernorSettings(
+            Boolean.parseBoolean(properties.getProperty(GOVERNOR_ENABLED, "true").trim()),
+            parseInt(properties, problems, GOVERNOR_TARGET_TICK_MILLIS, DEFAULT_GOVERNOR.targetTickMillis(), 1, 1_000),
+            reducedRadius,
+            parseInt(
+                properties,
+                problems,
+                GOVERNOR_MINIMAL_RADIUS,
+                DEFAULT_GOVERNOR.minimalRadius(),
+                LightTuning.DEFAULT.minRadius(),
+                reducedRadius
+            )
+        );
+        DensitySettings densitySettings = new DensitySettings(
+            Boolean.parseBoolean(properties.getProperty(DENSITY_LOD_ENABLED, "true").trim()),
+            parseInt(properties, problems, DENSITY_CELL_SIZE, DEFAULT_DENSITY.cellSize(), 4, 256),
+            parseInt(properties, problems, DENSITY_FULL_LIGHTS_PER_CELL, DEFAULT_DENSITY.fullLightsPerCell(), 1, 1_000),
+            parseFloat(properties, problems, DENSITY_ATTENUATION, DEFAULT_DENSITY.attenuation(), 0.0f, 1.0f)
+        );
+        AmbientSettings ambientSettings = new AmbientSettings(
+            parseInt(properties, problems, AMBIENT_MAX_AGE_SECONDS, DEFAULT_AMBIENT.maxAgeSeconds(), 1, 3_600),
+            parseInt(properties, problems, AMBIENT_CACHE_SECTIONS, DEFAULT_AMBIENT.cacheSections(), 16, 1 << 20)
+        );
+        return new BrightnessConfig(
+            configWatch,
+            lightTuning,
+            lightSources,
+            presets,
+            itemAssetLights,
+            lightCacheSize,
+            preferencesFlushSeconds,
+            statsLogSeconds,
+            reconnectGraceSeconds,
+            reconnectGraceMaxPlayers,
+            fadeSettings,
+            flickerSettings,
+            governorSettings,
+            densitySettings,
+            ambientSettings
+        );
+    }
+
+    /**
+     * Parses the boost curve. The values only make sense together, so an inconsistent set is reported (and, on the
+     * initial load, replaced by the defaults) as a whole.
+     */
+    @Nonnull
+    private static LightTuning parseTuning(@Nonnull Properties properties, @Nonnull Problems problems) {
+        LightTuning fallback = LightTuning.DEFAULT;
+        int warmRgb = fallback.warmRgb();
+        String warmTint = properties.getProperty(WARM_TINT);
+        if (warmTint != null) {
+            String hex = warmTint.trim().startsWith("#") ? warmTint.trim().substring(1) : warmTint.trim();
+            try {
+                if (hex.length() != 6) {
+                    throw new NumberFormatException();
+                }
+                warmRgb = Integer.parseInt(hex, 16);
+            } catch (NumberFormatException e) {
+                problems.report(WARM_TINT + ": '" + warmTint + "' is not a #RRGGBB color");
+            }
+        }
+        try {
+            return new LightTuning(
+                parseFloat(properties, problems, MIN_BRIGHTNESS, fallback.minBrightness(), 0.001f, 100.0f),
+                parseFloat(properties, problems, MAX_BRIGHTNESS, fallback.maxBrightness(), 0.001f, 100.0f),
+                parseInt(
+                    properties,
+                    problems,
+                    MIN_LIGHT_RADIUS,
+                    fallback.minRadius(),
+                    LightMath.MIN_LIGHT_RADIUS,
+                    LightMath.MAX_LIGHT_RADIUS
+                ),
+                parseInt(
+                    properties,
+                    problems,
+                    MAX_LIGHT_RADIUS,
+                    fallback.maxRadius(),
+                    LightMath.MIN_LIGHT_RADIUS,
+                    LightMath.MAX_LIGHT_RADIUS
+                ),
+                parseInt(properties, problems, MAX_LIGHT_INTENSITY, fallback.maxIntensity(), 1, LightMath.MAX_LIGHT_INTENSITY),
+                warmRgb
+            );
+        } catch (IllegalArgumentException e) {
+            problems.report("light tuning: " + e.getMessage());
+            return fallback;
+        }
+    }
+
+    private static int parseInt(
+        @Nonnull Properties properties,
+        @Nonnull Problems problems,
+        @Nonnull String key,
+        int fallback,
+        int min,
+        int max
+    ) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            problems.report(key + ": '" + value + "' is not a number");
+            return fallback;
+        }
+    }
+
+    private static float parseFloat(
+        @Nonnull Properties properties,
+        @Nonnull Problems problems,
+        @Nonnull String key,
+        float fallback,
+        float min,
+        float max
+    ) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return LightMath.clamp(Float.parseFloat(value.trim()), min, max);
+        } catch (NumberFormatException e) {
+            problems.report(key + ": '" + value + "' is not a number");
+            return fallback;
+        }
+    }
+
+    @Nonnull
+    private static FadeCurve parseCurve(
+        @Nonnull Properties properties,
+        @Nonnull Problems problems,
+        @Nonnull String key,
+        @Nonnull FadeCurve fallback
+    ) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return FadeCurve.parse(value);
+        } catch (IllegalArgumentException e) {
+            problems.report(key + ": unknown curve '" + value + "'");
+            return fallback;
+        }
+    }
+
+    /**
+     * Invalid entries found while parsing. The initial load logs and skips each one; a reload collects them and rejects
+     * the whole file.
+     */
+    private static final class Problems {
+
+        private final boolean strict;
+        private final List<String> messages = new ArrayList<>();
+
+        Problems(boolean strict) {
+            this.strict = strict;
+        }
+
+        void report(@Nonnull String message) {
+            if (strict) {
+                messages.add(message);
+            } else {
+                LOGGER.atWarning().log("Ignoring config entry " + message);
+            }
+        }
+
+        void throwIfAny() {
+            if (!messages.isEmpty()) {
+                throw new IllegalArgumentException("Invalid config entries: " + String.join("; ", messages));
+            }
+        }
+    }
+
+    int reconnectGraceSeconds() {
+        return reconnectGraceSeconds;
+    }
+
+    int reconnectGraceMaxPlayers() {
+        return reconnectGraceMaxPlayers;
+    }
+
+    boolean configWatch() {
+        return configWatch;
+    }
+
+    @Nonnull
+    LightTuning lightTuning() {
+        return lightTuning;
+    }
+
+    @Nonnull
+    Map<String, LightSource> lightSources() {
+        return lightSources;
+    }
+
+    /**
+     * Returns the configured presets by lower-case name, as brightness, tint and warmth values.
+     */
+    @Nonnull
+    Map<String, PlayerLightState> presets() {
+        return presets;
+    }
+
+    boolean itemAssetLights() {
+        return itemAssetLights;
+    }
+
+    int lightCacheSize() {
+        return lightCacheSize;
+    }
+
+    int preferencesFlushSeconds() {
+        return preferencesFlushSeconds;
+    }
+
+    /**
+     * Returns the periodic stats log interval, or {@code 0} if disabled.
+     */
+    int statsLogSeconds() {
+        return statsLogSeconds;
+    }
+
+    @Nonnull
+    FadeSettings fadeSettings() {
+        return fadeSettings;
+    }
+
+    @Nonnull
+    FlickerSettings flickerSettings() {
+        return flickerSettings;
+    }
+
+    @Nonnull
+    GovernorSettings governorSettings() {
+        return governorSettings;
+    }
+
+    @Nonnull
+    DensitySettings densitySettings() {
+        return densitySettings;
+    }
+
+    @Nonnull
+    AmbientSettings ambientSettings() {
+        return ambientSettings;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.DynamicLight;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Applies pending light changes for every entity carrying a {@link BrightnessPreference}. Only dirty preferences do any
+ * work, so the per-tick cost scales with the number of boosted players rather than the number of inventory events. A
+ * change of the world's radius cap (see {@link LoadGovernor}) dirties every active preference once.
+ */
+final class BrightnessLightSystem extends EntityTickingSystem<EntityStore> {
+
+    private final BrightnessService brightnessService;
+    private final ComponentType<EntityStore, BrightnessPreference> preferenceType;
+
+    BrightnessLightSystem(
+        @Nonnull BrightnessService brightnessService,
+        @Nonnull ComponentType<EntityStore, BrightnessPreference> preferenceType
+    ) {
+        this.brightnessService = brightnessService;
+        this.preferenceType = preferenceType;
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return preferenceType;
+    }
+
+    @Override
+    public boolean isParallel(int archetypeChunkSize, int taskCount) {
+        return EntityTickingSystem.maybeUseParallel(archetypeChunkSize, taskCount);
+    }
+
+    @Override
+    public void tick(
+        float dt,
+        int index,
+        @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        BrightnessPreference preference = archetypeChunk.getComponent(index, preferenceType);
+        if (preference == null) {
+            return;
+        }
+
+        int radiusCap = brightnessService.radiusCap(store);
+        if (!preference.isDirty()) {
+            if (preference.radiusCap() == radiusCap || !preference.isActive()) {
+                return;
+            }
+            // The world's light quality changed; recompute this player's light under the new cap.
+            preference.markDirty(false);
+        }
+
+        Player player = archetypeChunk.getComponent(index, Player.getComponentType());
+        if (player == null) {
+            return;
+        }
+
+        brightnessService.applyLight(
+            archetypeChunk.getReferenceTo(index),
+            preference,
+            player,
+            archetypeChunk.getComponent(index, PlayerRef.getComponentType()),
+            archetypeChunk.getComponent(index, DynamicLight.getComponentType()),
+            radiusCap,
+            commandBuffer
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters for the brightness pipeline. Hot-path updates are striped {@link LongAdder} increments or
+ * {@link LatencyHistogram} records; nothing is aggregated until a report is requested.
+ */
+final class BrightnessMetrics {
+
+    final LongAdder syncsRequested = new LongAdder();
+    final LongAdder syncsExecuted = new LongAdder();
+    final LongAdder worldChanges = new LongAdder();
+    /**
+     * Inventory events and queued syncs that referred to a world the player had already left.
+     */
+    final LongAdder staleEvents = new LongAdder();
+    final LongAdder commandSyncs = new LongAdder();
+    /**
+     * Commands whose pending sync was replaced by a newer command from the same player before it ran.
+     */
+    final LongAdder commandsSuperseded = new LongAdder();
+    final LongAdder utilityScans = new LongAdder();
+    final LongAdder lightWrites = new LongAdder();
+    final LongAdder skippedLightWrites = new LongAdder();
+    /**
+     * Lights taken from a preset's precomputed table instead of the light cache.
+     */
+    final LongAdder presetLights = new LongAdder();
+    final LongAdder flickerWrites = new LongAdder();
+    final LongAdder governorTransitions = new LongAdder();
+    final LongAdder ambientSamples = new LongAdder();
+    final LongAdder ambientHits = new LongAdder();
+
+    /**
+     * Time from a sync being requested to it running on the world thread.
+     */
+    final LatencyHistogram queueDelay = new LatencyHistogram();
+    /**
+     * Time spent pushing settings onto the player entity.
+     */
+    final LatencyHistogram pushTime = new LatencyHistogram();
+    /**
+     * Time spent applying a dirty preference in {@link BrightnessLightSystem}.
+     */
+    final LatencyHistogram applyTime = new LatencyHistogram();
+
+    /**
+     * World name per player currently holding a boosted light. Only touched when a boost turns on or off.
+     */
+    private final ConcurrentMap<UUID, String> activePlayers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LoadGovernor> governors = new ConcurrentHashMap<>();
+
+    void boostActivated(@Nonnull UUID playerUuid, @Nonnull String worldName) {
+        activePlayers.put(playerUuid, worldName);
+    }
+
+    void boostDeactivated(@Nonnull UUID playerUuid) {
+        activePlayers.remove(playerUuid);
+    }
+
+    /**
+     * Registers a world's governor so its current quality shows up in reports.
+     */
+    void trackGovernor(@Nonnull String worldName, @Nonnull LoadGovernor governor) {
+        governors.put(worldName, governor);
+    }
+
+    /**
+     * Drops a governor whose world has shut down. Removed by identity, so a world reloaded under the same name keeps
+     * its new governor.
+     */
+    void untrackGovernor(@Nonnull LoadGovernor governor) {
+        governors.values().remove(governor);
+    }
+
+    /**
+     * Returns the number of boosted players per world, sorted by world name.
+     */
+    @Nonnull
+    Map<String, Integer> activePlayersPerWorld() {
+        Map<String, Integer> perWorld = new TreeMap<>();
+        for (String worldName : activePlayers.values()) {
+            perWorld.merge(worldName, 1, Integer::sum);
+        }
+        return perWorld;
+    }
+
+    /**
+     * Formats the current values as report lines, using the scheduler and caches for their own counters.
+     */
+    @Nonnull
+    List<String> report(
+        long coalescedSyncs,
+        @Nonnull ColorLightCache lightCache,
+        @Nonnull PlayerHandleCache playerHandles,
+        @Nonnull ReconnectGraceCache graceCache
+    ) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Syncs: requested=" + syncsRequested.sum() + " executed=" + syncsExecuted.sum() + " coalesced=" + coalescedSyncs);
+        long commands = commandSyncs.sum();
+        long superseded = commandsSuperseded.sum();
+        lines.add(
+            "Commands: synced=" + commands + " superseded=" + superseded
+                + (commands == 0 ? "" : " (" + Math.round(superseded * 100.0 / commands) + "% absorbed)")
+        );
+        lines.add("Queue delay: " + queueDelay.summary());
+        lines.add("Push time: " + pushTime.summary());
+        lines.add("Apply time: " + applyTime.summary());
+        lines.add("Utility scans: " + utilityScans.sum());
+        lines.add(
+            "Light writes: " + lightWrites.sum() + " (skipped " + skippedLightWrites.sum() + ", flicker " + flickerWrites.sum() + ")"
+        );
+        lines.add(
+            "Light cache: " + lightCache.size() + "/" + lightCache.capacity() + " hit rate "
+                + Math.round(lightCache.hitRate() * 100.0) + "% (" + lightCache.evictions() + " evictions)"
+        );
+        lines.add(
+            "Handles: hits=" + playerHandles.hitCount() + " misses=" + playerHandles.missCount() + " stale="
+                + playerHandles.staleCount()
+        );
+        lines.add("Preset lights: " + presetLights.sum());
+        lines.add("Ambient lookups: sampled=" + ambientSamples.sum() + " cached=" + ambientHits.sum());
+        lines.add("World changes: " + worldChanges.sum() + " (stale events dropped " + staleEvents.sum() + ")");
+        lines.add("Reconnect grace: " + graceCache.summary());
+        lines.add("Boosted players: " + activePlayers.size() + " " + activePlayersPerWorld());
+        if (!governors.isEmpty()) {
+            StringBuilder quality = new StringBuilder("Light quality:");
+            for (Map.Entry<String, LoadGovernor> entry : new TreeMap<>(governors).entrySet()) {
+                LoadGovernor governor = entry.getValue();
+                quality.append(' ').append(entry.getKey()).append('=').append(governor.quality())
+                    .append(" (").append(Math.round(governor.averageTickMillis())).append("ms)");
+            }
+            lines.add(quality.append(", ").append(governorTransitions.sum()).append(" changes").toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,270 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Brightness state stored on a player entity while the player has a boost (or a boost still needs reverting). Holds the
+ * latest settings snapshot pushed to the world plus the runtime light state. Only ever touched on the world thread: by
+ * the light system while it ticks this entity (possibly on one of its parallel workers), or by per-world systems that
+ * run sequentially between those ticks. The light system never writes another entity's preference.
+ */
+public final class BrightnessPreference implements Component<EntityStore> {
+
+    static final long NO_SECTION = Long.MIN_VALUE;
+
+    private PlayerLightState settings = PlayerLightState.EMPTY;
+    private boolean dirty = true;
+    private boolean announce;
+
+    private boolean active;
+    private int baseline = LightMath.NONE;
+    private long torchSlots;
+    private boolean torchSlotsKnown;
+    private LightSourceMix lightMix = new LightSourceMix();
+    private int appliedLight = LightMath.NONE;
+
+    private boolean lightAttached;
+    private int displayedLight = LightMath.NONE;
+    private int fadeSlot = -1;
+    private int fadeTarget = LightMath.NONE;
+    private int flickerSlot = -1;
+    private int radiusCap = LightMath.MAX_LIGHT_RADIUS;
+    private int densitySlot = -1;
+    private boolean densityFull = true;
+    private long ambientSection = NO_SECTION;
+    private int ambientLevel = AmbientLightCache.UNKNOWN;
+    private int ambientCountdown;
+    private int restoredLight = LightMath.NONE;
+
+    public BrightnessPreference() {
+    }
+
+    @Nonnull
+    PlayerLightState settings() {
+        return settings;
+    }
+
+    void setSettings(@Nonnull PlayerLightState settings) {
+        this.settings = settings;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the light for re-evaluation on the next tick. An announce request sticks until that tick runs.
+     */
+    void markDirty(boolean announce) {
+        this.dirty = true;
+        this.announce |= announce;
+    }
+
+    /**
+     * Clears the dirty flag and returns whether the player asked for a confirmation message.
+     */
+    boolean consumeDirty() {
+        boolean requested = announce;
+        dirty = false;
+        announce = false;
+        return requested;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Returns the packed combined light-source light the applied boost was computed from.
+     */
+    int baseline() {
+        return baseline;
+    }
+
+    int appliedLight() {
+        return appliedLight;
+    }
+
+    void setApplied(int baseline, int appliedLight) {
+        this.active = appliedLight != LightMath.NONE;
+        this.baseline = baseline;
+        this.appliedLight = appliedLight;
+    }
+
+    /**
+     * Returns {@code true} while the player carries a {@code DynamicLight} added by the boost, including while it fades
+     * out.
+     */
+    boolean lightAttached() {
+        return lightAttached;
+    }
+
+    /**
+     * Returns the light last written to the component, which differs from {@link #appliedLight()} mid-fade.
+     */
+    int displayedLight() {
+        return displayedLight;
+    }
+
+    void setDisplayed(boolean lightAttached, int displayedLight) {
+        this.lightAttached = lightAttached;
+        this.displayedLight = displayedLight;
+    }
+
+    boolean isFading() {
+        return fadeSlot >= 0;
+    }
+
+    int fadeSlot() {
+        return fadeSlot;
+    }
+
+    void setFadeSlot(int fadeSlot) {
+        this.fadeSlot = fadeSlot;
+    }
+
+    int fadeTarget() {
+        return fadeTarget;
+    }
+
+    void setFadeTarget(int fadeTarget) {
+        this.fadeTarget = fadeTarget;
+    }
+
+    boolean isFlickering() {
+        return flickerSlot >= 0;
+    }
+
+    int flickerSlot() {
+        return flickerSlot;
+    }
+
+    void setFlickerSlot(int flickerSlot) {
+        this.flickerSlot = flickerSlot;
+    }
+
+    /**
+     * Returns the governor radius cap the current light was computed with.
+     */
+    int radiusCap() {
+        return radiusCap;
+    }
+
+    void setRadiusCap(int radiusCap) {
+        this.radiusCap = radiusCap;
+    }
+
+    int densitySlot() {
+        return densitySlot;
+    }
+
+    void setDensitySlot(int densitySlot) {
+        this.densitySlot = densitySlot;
+    }
+
+    /**
+     * Returns {@code false} while the player's grid cell already has its share of full-strength lights.
+     */
+    boolean densityFull() {
+        return densityFull;
+    }
+
+    void setDensityFull(boolean densityFull) {
+        this.densityFull = densityFull;
+    }
+
+    /**
+     * Returns the chunk section the ambient level was last looked up for, or {@link #NO_SECTION}.
+     */
+    long ambientSection() {
+        return ambientSection;
+    }
+
+    /**
+     * Returns the ambient light level (0 - 15) around the player, or {@link AmbientLightCache#UNKNOWN}.
+     */
+    int ambientLevel() {
+        return ambientLevel;
+    }
+
+    void setAmbient(long section, int level) {
+        this.ambientSection = section;
+        this.ambientLevel = level;
+    }
+
+    /**
+     * Counts down the ticks until the ambient level is looked up again while the player stays in one section.
+     */
+    boolean ambientRecheckDue(int intervalTicks) {
+        if (--ambientCountdown > 0) {
+            return false;
+        }
+        ambientCountdown = intervalTicks;
+        return true;
+    }
+
+    /**
+     * Sets the light the player had before reconnecting; if the next applied light matches it, it is shown at once
+     * instead of fading in again.
+     */
+    void setRestoredLight(int restoredLight) {
+        this.restoredLight = restoredLight;
+    }
+
+    /**
+     * Returns and clears the light restored from a reconnect, or {@link LightMath#NONE}.
+     */
+    int consumeRestoredLight() {
+        int light = restoredLight;
+        restoredLight = LightMath.NONE;
+        return light;
+    }
+
+    long torchSlots() {
+        return torchSlots;
+    }
+
+    boolean torchSlotsKnown() {
+        return torchSlotsKnown;
+    }
+
+    void setTorchSlots(long torchSlots, boolean known) {
+        this.torchSlots = torchSlots;
+        this.torchSlotsKnown = known;
+    }
+
+    /**
+     * Returns the running combination of the light sources in {@link #torchSlots()}.
+     */
+    @Nonnull
+    LightSourceMix lightMix() {
+        return lightMix;
+    }
+
+    @Nonnull
+    @Override
+    public BrightnessPreference clone() {
+        BrightnessPreference copy = new BrightnessPreference();
+        copy.settings = settings;
+        copy.dirty = dirty;
+        copy.announce = announce;
+        copy.active = active;
+        copy.baseline = baseline;
+        copy.torchSlots = torchSlots;
+        copy.torchSlotsKnown = torchSlotsKnown;
+        copy.lightMix = lightMix.copy();
+        copy.appliedLight = appliedLight;
+        copy.lightAttached = lightAttached;
+        copy.displayedLight = displayedLight;
+        // Fade slots belong to the world that owns this instance; the copy is not fading and transitions from the
+        // displayed light when next applied.
+        copy.fadeTarget = fadeTarget;
+        copy.radiusCap = radiusCap;
+        // The ambient level is kept until the new world's cache is consulted, which happens on the first tick there.
+        copy.ambientLevel = ambientLevel;
+        return copy;
+    }
+}
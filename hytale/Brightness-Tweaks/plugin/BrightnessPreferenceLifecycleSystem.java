@@ -0,0 +1,78 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Releases per-world bookkeeping when an entity carrying a {@link BrightnessPreference} leaves a store (disconnect,
+ * world change, despawn), so per-world structures never hold on to departed players. Players' light state is handed
+ * to the reconnect grace cache on the way out.
+ */
+final class BrightnessPreferenceLifecycleSystem extends RefSystem<EntityStore> {
+
+    private final BrightnessService brightnessService;
+    private final ComponentType<EntityStore, BrightnessPreference> preferenceType;
+    private final ResourceType<EntityStore, LightDensityGrid> gridType;
+    private final DensitySettings densitySettings;
+
+    BrightnessPreferenceLifecycleSystem(
+        @Nonnull BrightnessService brightnessService,
+        @Nonnull BrightnessTypes types,
+        @Nonnull DensitySettings densitySettings
+    ) {
+        this.brightnessService = brightnessService;
+        this.preferenceType = types.preference();
+        this.gridType = types.densityGrid();
+        this.densitySettings = densitySettings;
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return preferenceType;
+    }
+
+    @Override
+    public void onEntityAdded(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull AddReason reason,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+    }
+
+    @Override
+    public void onEntityRemove(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull RemoveReason reason,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        BrightnessPreference preference = store.getComponent(ref, preferenceType);
+        if (preference == null) {
+            return;
+        }
+        PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+        if (playerRef != null) {
+            brightnessService.rememberForReconnect(playerRef.getUuid(), preference);
+        }
+        if (preference.densitySlot() < 0) {
+            return;
+        }
+        LightDensityGrid grid = store.getResource(gridType);
+        if (grid != null) {
+            grid.remove(preference, densitySettings.fullLightsPerCell());
+        }
+    }
+}
@@ -1,66 +1,124 @@
 package org.example.plugin;
 
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
 import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.protocol.ColorLight;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.Inventory;
-import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.Transaction;
 import com.hypixel.hytale.server.core.modules.entity.component.DynamicLight;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 /**
- * Manages a torch-only brightness boost by overriding the player {@link DynamicLight} while a torch exists in the
- * utility belt.
+ * Manages a torch-only brightness boost by overriding the player {@link DynamicLight} while a torch (or another
+ * registered light source) exists in the utility belt. Settings are kept per player and pushed onto the player entity
+ * as a {@link BrightnessPreference}; {@link BrightnessLightSystem} applies the light on the world tick and
+ * {@link LightFadeSystem} animates the change when fades are configured.
  */
 public final class BrightnessService {
 
-    static final float MIN_BRIGHTNESS = 0.01f;
-    static final float MAX_BRIGHTNESS = 1.0f;
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    private static final int MIN_LIGHT_RADIUS = 6;
-    private static final int MAX_LIGHT_RADIUS = 32;
-
-    private static final int MAX_LIGHT_INTENSITY = 255;
+    /**
+     * Classifies the item in one utility-belt slot.
+     */
+    private static final LightPipeline.SlotClassifier<ItemContainer> UTILITY_SLOTS =
+        (lightSources, utility, slot) -> lightSources.classify(utility.getItemStack((short) slot));
 
-    private final ConcurrentMap<UUID, Float> desiredBrightness = new ConcurrentHashMap<>();
-    private final ConcurrentMap<UUID, Integer> desiredTintRgb = new ConcurrentHashMap<>();
-    private final ConcurrentMap<UUID, Float> desiredWarmth = new ConcurrentHashMap<>();
-    private final Set<UUID> activeBoost = ConcurrentHashMap.newKeySet();
-    private final ConcurrentMap<UUID, ColorLight> torchBaseline = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, PlayerLightState> states = new ConcurrentHashMap<>();
+    /**
+     * Latest command per player not yet picked up by a batched sync; see {@link #syncPlayer}.
+     */
+    private final ConcurrentMap<UUID, PendingCommand> pendingCommands = new ConcurrentHashMap<>();
+    /**
+     * World each player was last added to. Lets a world change drop exactly the old world's entries and lets stale
+     * events from the old world be recognized, without scanning players.
+     */
+    private final ConcurrentMap<UUID, World> playerWorlds = new ConcurrentHashMap<>();
+    /**
+     * Light state carried over from the player's previous entity, applied by the next batched sync in the new world.
+     */
+    private final ConcurrentMap<UUID, ReconnectGraceCache.Entry> pendingRestores = new ConcurrentHashMap<>();
+    /**
+     * Light tuning, light sources and the matching light cache, swapped as one snapshot on config reload. Readers load
+     * the field once per operation, so they never mix two configs.
+     */
+    private volatile LightProfile lightProfile;
+    private final PlayerHandleCache playerHandles = new PlayerHandleCache();
+    private final BrightnessMetrics metrics = new BrightnessMetrics();
+    private final ComponentType<EntityStore, BrightnessPreference> preferenceType;
+    private final ResourceType<EntityStore, LightFadeTracks> fadeTracksType;
+    private final ResourceType<EntityStore, LightFlickerTracks> flickerTracksType;
+    private final ResourceType<EntityStore, LoadGovernor> governorType;
+    private final FadeSettings fadeSettings;
+    private final FlickerSettings flickerSettings;
+    private final GovernorSettings governorSettings;
+    private final DensitySettings densitySettings;
+    private final PreferenceStore preferenceStore;
+    private final ReconnectGraceCache graceCache;
+    private final WorldSyncScheduler<World> syncScheduler = new WorldSyncScheduler<>(
+        World::execute,
+        this::syncOnWorldThread,
+        metrics.queueDelay
+    );
+
+    public BrightnessService(
+        @Nonnull BrightnessConfig config,
+        @Nonnull BrightnessTypes types,
+        @Nonnull PreferenceStore preferenceStore
+    ) {
+        this.lightProfile = LightProfile.of(config);
+        this.preferenceType = types.preference();
+        this.fadeTracksType = types.fadeTracks();
+        this.flickerTracksType = types.flickerTracks();
+        this.governorType = types.governor();
+        this.fadeSettings = config.fadeSettings();
+        this.flickerSettings = config.flickerSettings();
+        this.governorSettings = config.governorSettings();
+        this.densitySettings = config.densitySettings();
+        this.preferenceStore = preferenceStore;
+        this.graceCache = new ReconnectGraceCache(
+            TimeUnit.SECONDS.toNanos(config.reconnectGraceSeconds()),
+            config.reconnectGraceMaxPlayers()
+        );
+    }
 
     /**
      * Sets the desired boost for a player. Use {@code null} to clear and revert to vanilla behavior.
      */
     public void setDesiredBrightness(@Nonnull UUID playerUuid, @Nullable Float value) {
-        if (value == null) {
-            desiredBrightness.remove(playerUuid);
-            return;
-        }
-        desiredBrightness.put(playerUuid, value);
+        float brightness = value == null ? Float.NaN : value;
+        updateState(playerUuid, state -> state.withBrightness(brightness));
     }
 
     /**
      * Sets the desired tint for the boosted dynamic light using an RGB integer (0xRRGGBB). Use {@code null} to clear.
      */
     public void setDesiredTintRgb(@Nonnull UUID playerUuid, @Nullable Integer rgb) {
-        if (rgb == null) {
-            desiredTintRgb.remove(playerUuid);
-            return;
-        }
-        desiredWarmth.remove(playerUuid);
-        desiredTintRgb.put(playerUuid, rgb & 0xFFFFFF);
+        int tintRgb = rgb == null ? PlayerLightState.NO_TINT : rgb & 0xFFFFFF;
+        updateState(playerUuid, state -> state.withTintRgb(tintRgb));
     }
 
     /**
@@ -68,85 +126,640 @@ public final class BrightnessService {
      * {@code null} to clear.
      */
     public void setDesiredWarmth(@Nonnull UUID playerUuid, @Nullable Float warmth01) {
-        if (warmth01 == null) {
-            desiredWarmth.remove(playerUuid);
-            return;
-        }
-        desiredTintRgb.remove(playerUuid);
-        desiredWarmth.put(playerUuid, clamp(warmth01, 0.0f, 1.0f));
+        float warmth = warmth01 == null ? Float.NaN : LightMath.clamp(warmth01, 0.0f, 1.0f);
+        updateState(playerUuid, state -> state.withWarmth(warmth));
+    }
+
+    /**
+     * Sets the flicker amount for the boosted light (0.0 = steady, 1.0 = strong flame flicker). Use {@code null} to
+     * clear.
+     */
+    public void setDesiredFlicker(@Nonnull UUID playerUuid, @Nullable Float amount01) {
+        float flicker = amount01 == null ? 0.0f : LightMath.clamp(amount01, 0.0f, 1.0f);
+        updateState(playerUuid, state -> state.withFlicker(flicker));
+    }
+
+    /**
+     * Switches the player to a light preset, replacing their brightness, tint and warmth.
+     */
+    public void setDesiredPreset(@Nonnull UUID playerUuid, @Nonnull LightPreset preset) {
+        updateState(playerUuid, state -> state.withPreset(preset));
+    }
+
+    /**
+     * Enables or disables auto mode, which scales the boost down as the ambient light around the player rises.
+     */
+    public void setDesiredAuto(@Nonnull UUID playerUuid, boolean auto) {
+        updateState(playerUuid, state -> state.withAuto(auto));
     }
 
     /**
-     * Returns {@code true} if this player has any tracked brightness state.
+     * Returns {@code true} if the player has auto mode enabled.
+     */
+    public boolean isAuto(@Nonnull UUID playerUuid) {
+        PlayerLightState state = states.get(playerUuid);
+        return state != null && state.auto();
+    }
+
+    /**
+     * Returns {@code true} if this player has any brightness settings.
      */
     public boolean hasState(@Nonnull UUID playerUuid) {
-        return desiredBrightness.containsKey(playerUuid) || activeBoost.contains(playerUuid);
+        return states.containsKey(playerUuid);
     }
 
     /**
-     * Clears all state for a player (used on disconnect).
+     * Clears all in-memory state for a player (used on disconnect). Saved settings stay in the preference store and
+     * runtime light state leaves with the entity.
      */
     public void clearPlayer(@Nonnull UUID playerUuid) {
-        desiredBrightness.remove(playerUuid);
-        desiredTintRgb.remove(playerUuid);
-        desiredWarmth.remove(playerUuid);
-        activeBoost.remove(playerUuid);
-        torchBaseline.remove(playerUuid);
+        states.remove(playerUuid);
+        metrics.boostDeactivated(playerUuid);
+        syncScheduler.forget(playerUuid);
+        pendingCommands.remove(playerUuid);
+        pendingRestores.remove(playerUuid);
+        playerWorlds.remove(playerUuid);
+        playerHandles.invalidate(playerUuid);
+    }
+
+    /**
+     * Returns the world the player was last added to, or {@code fallback} if none is known.
+     */
+    @Nonnull
+    private World currentWorld(@Nonnull UUID playerUuid, @Nonnull World fallback) {
+        World current = playerWorlds.get(playerUuid);
+        return current == null ? fallback : current;
+    }
+
+    /**
+     * Remembers the light state of a player whose entity is leaving its world, so a reconnect within the grace period
+     * restores it in one step. Called on the world thread.
+     */
+    void rememberForReconnect(@Nonnull UUID playerUuid, @Nonnull BrightnessPreference preference) {
+        if (!preference.settings().isEmpty()) {
+            graceCache.put(
+                playerUuid,
+                preference.settings(),
+                preference.torchSlots(),
+                preference.torchSlotsKnown(),
+                preference.appliedLight(),
+                System.nanoTime()
+            );
+        }
+    }
+
+    /**
+     * Drops reconnect grace entries whose TTL has passed. Called periodically from the background executor.
+     */
+    void expireReconnectGrace() {
+        graceCache.expire(System.nanoTime());
+    }
+
+    /**
+     * Handles a player entering a world (join or world change). On a world change the player's pending sync and cached
+     * entity handle in the previous world are dropped directly. The light state the old entity left in the grace cache
+     * (see {@link #rememberForReconnect}) moves into the new world's next batched sync and is re-applied there once,
+     * without a utility-belt rescan or fade-in; the same applies to a reconnect within the grace period. Otherwise the
+     * settings are pushed with a rescan, loading them from the preference store in the background first if needed.
+     */
+    public void onPlayerAddedToWorld(@Nonnull World world, @Nonnull UUID playerUuid) {
+        World previous = playerWorlds.put(playerUuid, world);
+        if (previous != null && previous != world) {
+            metrics.worldChanges.increment();
+            syncScheduler.forget(previous, playerUuid);
+            playerHandles.invalidate(previous, playerUuid);
+        }
+        playerHandles.invalidate(world, playerUuid);
+
+        ReconnectGraceCache.Entry grace = graceCache.take(playerUuid, System.nanoTime());
+        if (grace != null) {
+            states.putIfAbsent(playerUuid, grace.settings());
+            pendingRestores.put(playerUuid, grace);
+            requestSync(world, playerUuid, LightTraceEvents.CAUSE_RESTORE);
+            return;
+        }
+        if (hasState(playerUuid)) {
+            requestSync(world, playerUuid, LightTraceEvents.CAUSE_JOIN);
+            return;
+        }
+
+        preferenceStore.load(playerUuid).thenAccept(saved -> {
+            if (saved.isEmpty() || Universe.get().getPlayer(playerUuid) == null) {
+                return;
+            }
+            if (states.putIfAbsent(playerUuid, lightProfile.presets().link(saved)) == null) {
+                // The player may have changed worlds while the load was running.
+                requestSync(currentWorld(playerUuid, world), playerUuid, LightTraceEvents.CAUSE_JOIN);
+            }
+        });
     }
 
     /**
-     * Syncs the player's light based on the current utility-slot item. Must be safe to call from any thread.
+     * Updates torch tracking from an inventory change and marks the light dirty only if torch presence flipped. Players
+     * without a {@link BrightnessPreference} cost one component lookup; changes to containers other than the utility
+     * belt cost O(1); utility changes only re-check the slots the transaction touched.
      */
-    public void syncPlayer(@Nonnull World world, @Nonnull UUID playerUuid, boolean announce) {
-        world.execute(() -> syncPlayerOnWorldThread(world, playerUuid, announce));
+    public void onInventoryChange(
+        @Nonnull World world,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull UUID playerUuid,
+        @Nullable Inventory inventory,
+        @Nullable ItemContainer changed,
+        @Nullable Transaction transaction
+    ) {
+        LightTraceEvents.InventoryChange trace = new LightTraceEvents.InventoryChange();
+        trace.begin();
+        String outcome = handleInventoryChange(world, store, ref, playerUuid, inventory, changed, transaction);
+        trace.commit(playerUuid, world.getName(), outcome);
     }
 
-    private void syncPlayerOnWorldThread(@Nonnull World world, @Nonnull UUID playerUuid, boolean announce) {
+    /**
+     * Does the work of {@link #onInventoryChange} and returns its trace outcome.
+     */
+    @Nonnull
+    private String handleInventoryChange(
+        @Nonnull World world,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull UUID playerUuid,
+        @Nullable Inventory inventory,
+        @Nullable ItemContainer changed,
+        @Nullable Transaction transaction
+    ) {
+        World current = currentWorld(playerUuid, world);
+        if (current != world || !ref.isValid()) {
+            // Raised against the entity the player just left; the new world's batch rescans the belt anyway.
+            metrics.staleEvents.increment();
+            if (hasState(playerUuid)) {
+                requestSync(current, playerUuid, LightTraceEvents.CAUSE_INVENTORY);
+            }
+            return LightTraceEvents.OUTCOME_STALE_WORLD;
+        }
+        if (!world.isInThread()) {
+            // Off-thread changes cannot touch the entity; hand them to the per-world batch, which rescans.
+            if (hasState(playerUuid)) {
+                requestSync(world, playerUuid, LightTraceEvents.CAUSE_INVENTORY);
+            }
+            return LightTraceEvents.OUTCOME_DEFERRED;
+        }
+
+        BrightnessPreference preference = store.getComponent(ref, preferenceType);
+        if (preference == null || inventory == null) {
+            return LightTraceEvents.OUTCOME_IGNORED;
+        }
+
+        ItemContainer utility = inventory.getUtility();
+        LightPipeline.BeltChange change = LightPipeline.beltChange(
+            changed,
+            utility,
+            inventory.getHotbar(),
+            inventory.getStorage(),
+            inventory.getBackpack(),
+            inventory.getArmor()
+        );
+        if (change == LightPipeline.BeltChange.NONE) {
+            return LightTraceEvents.OUTCOME_IGNORED;
+        }
+        if (change == LightPipeline.BeltChange.UNKNOWN) {
+            // Combined or unknown containers may hide a utility change; let the next tick rescan.
+            LightPipeline.forgetBelt(preference);
+            return LightTraceEvents.OUTCOME_APPLIED;
+        }
+
+        int capacity = utility.getCapacity();
+        boolean changedLight = LightPipeline.beltChanged(
+            preference,
+            lightProfile,
+            utility,
+            capacity,
+            UTILITY_SLOTS,
+            modifiedSlots(transaction, capacity),
+            metrics
+        );
+        return changedLight ? LightTraceEvents.OUTCOME_APPLIED : LightTraceEvents.OUTCOME_NO_OP;
+    }
+
+    /**
+     * Returns the number of full utility-belt scans performed.
+     */
+    public long utilityScanCount() {
+        return metrics.utilityScans.sum();
+    }
+
+    /**
+     * Returns the number of {@link DynamicLight} writes (component adds and light changes).
+     */
+    public long lightWriteCount() {
+        return metrics.lightWrites.sum();
+    }
+
+    /**
+     * Returns the number of syncs that skipped the component write because the light was already applied.
+     */
+    public long skippedLightWriteCount() {
+        return metrics.skippedLightWrites.sum();
+    }
+
+    /**
+     * Returns the runtime metrics reported by {@code /brightness stats}.
+     */
+    BrightnessMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Formats all runtime metrics as report lines.
+     */
+    @Nonnull
+    public List<String> statsReport() {
+        return metrics.report(syncScheduler.coalescedCount(), lightProfile.lightCache(), playerHandles, graceCache);
+    }
+
+    /**
+     * Returns the shared cache of computed boost lights.
+     */
+    @Nonnull
+    LightProfile lightProfile() {
+        return lightProfile;
+    }
+
+    /**
+     * Requests a silent sync for the player. Requests are coalesced per world and drained once per tick, so a burst of
+     * requests results in a single push. Safe to call from any thread.
+     *
+     * @param cause what triggered the sync, for tracing (one of the {@code LightTraceEvents.CAUSE_*} values)
+     */
+    public void requestSync(@Nonnull World world, @Nonnull UUID playerUuid, @Nonnull String cause) {
+        metrics.syncsRequested.increment();
+        new LightTraceEvents.SyncRequested().commit(playerUuid, world.getName(), cause);
+        syncScheduler.markDirty(world, playerUuid);
+    }
+
+    /**
+     * Returns the number of players waiting for a batched sync in the given world.
+     */
+    int pendingSyncCount(@Nonnull World world) {
+        return syncScheduler.pendingCount(world);
+    }
+
+    /**
+     * Returns the radius cap the world's {@link LoadGovernor} currently allows.
+     */
+    int radiusCap(@Nonnull Store<EntityStore> store) {
+        LoadGovernor governor = store.getResource(governorType);
+        return governor == null ? LightMath.MAX_LIGHT_RADIUS : governorSettings.radiusCap(governor.quality());
+    }
+
+    /**
+     * Returns the number of sync requests that were folded into an already pending sync.
+     */
+    public long coalescedSyncCount() {
+        return syncScheduler.coalescedCount();
+    }
+
+    /**
+     * Returns the number of syncs executed by the per-world batch tasks.
+     */
+    public long executedSyncCount() {
+        return syncScheduler.executedCount();
+    }
+
+    /**
+     * Pushes the player's current settings to their entity after a command; the light itself is applied by
+     * {@link BrightnessLightSystem} on the next tick. The command takes the player's single pending-command slot and
+     * joins the world's batched sync, so commands spammed within one tick collapse into one push and only the latest
+     * one's reply is sent. Must be safe to call from any thread.
+     *
+     * @param announce whether to report the resulting light to the player
+     * @param confirmation reply sent once the settings are pushed, or {@code null}
+     */
+    public void syncPlayer(@Nonnull World world, @Nonnull PlayerRef player, boolean announce, @Nullable Message confirmation) {
+        metrics.commandSyncs.increment();
+        UUID playerUuid = player.getUuid();
+        if (pendingCommands.put(playerUuid, new PendingCommand(player, announce, confirmation)) != null) {
+            metrics.commandsSuperseded.increment();
+        }
+        requestSync(world, playerUuid, LightTraceEvents.CAUSE_COMMAND);
+    }
+
+    /**
+     * Batched sync for one player: restores light state carried over from their previous entity, then pushes their
+     * settings along with the latest pending command's announcement and reply if there is one. A command whose push
+     * found no entity stays pending and is not confirmed yet. Syncs queued in a world the player has since left are
+     * handed to their current world, so a pending command or restore is not lost.
+     */
+    private void syncOnWorldThread(@Nonnull World world, @Nonnull UUID playerUuid) {
+        LightTraceEvents.Sync trace = new LightTraceEvents.Sync();
+        trace.begin();
+        World current = currentWorld(playerUuid, world);
+        if (current != world) {
+            metrics.staleEvents.increment();
+            if (pendingCommands.containsKey(playerUuid) || pendingRestores.containsKey(playerUuid)) {
+                String cause = pendingRestores.containsKey(playerUuid) ? LightTraceEvents.CAUSE_RESTORE : LightTraceEvents.CAUSE_COMMAND;
+                requestSync(current, playerUuid, cause);
+            }
+            trace.commit(playerUuid, world.getName(), LightTraceEvents.CAUSE_BATCH, LightTraceEvents.OUTCOME_STALE_WORLD);
+            return;
+        }
+        ReconnectGraceCache.Entry restore = pendingRestores.remove(playerUuid);
+        PendingCommand command = pendingCommands.remove(playerUuid);
+        boolean pushed = true;
+        if (restore != null) {
+            pushed = restoreOnWorldThread(world, playerUuid, restore);
+        }
+        if (command != null) {
+            pushed = pushSettingsOnWorldThread(world, playerUuid, command.announce(), true);
+            if (!pushed) {
+                // No entity to push to yet; keep the command (unless a newer one arrived) for the next sync.
+                pendingCommands.putIfAbsent(playerUuid, command);
+            } else if (command.confirmation() != null) {
+                command.player().sendMessage(command.confirmation());
+            }
+        } else if (restore == null) {
+            pushed = pushSettingsOnWorldThread(world, playerUuid, false, true);
+        }
+        String cause = restore != null ? LightTraceEvents.CAUSE_RESTORE
+            : command != null ? LightTraceEvents.CAUSE_COMMAND : LightTraceEvents.CAUSE_BATCH;
+        String outcome = pushed ? LightTraceEvents.OUTCOME_APPLIED : LightTraceEvents.OUTCOME_MISSING_REF;
+        trace.commit(playerUuid, world.getName(), cause, outcome);
+    }
+
+    /**
+     * Publishes the reloadable part of a new config: the light profile is built and preloaded on the calling thread,
+     * then swapped in with one volatile write. Every player with settings is then re-synced (with a utility-belt rescan,
+     * since light sources may have changed) in one batch per world; players on a preset pick up its new values.
+     */
+    void reload(@Nonnull BrightnessConfig config) {
+        LightProfile profile = LightProfile.of(config);
+        int itemLights = profile.preload();
+        LightPresets previousPresets = lightProfile.presets();
+        lightProfile = profile;
+
+        Map<World, List<UUID>> players = playersByWorld(null);
+        players.values().forEach(uuids -> uuids.removeIf(playerUuid -> !hasState(playerUuid)));
+        players.values().removeIf(List::isEmpty);
+        LOGGER.atInfo().log(
+            "Reloaded brightness config: " + itemLights + " light-source items, re-syncing "
+                + players.values().stream().mapToInt(List::size).sum() + " players"
+        );
+        bulkSync(players, state -> profile.presets().carryOver(previousPresets, state), true).thenAccept(results -> {
+            int failures = results.stream().mapToInt(BulkSyncResult::failures).sum();
+            if (failures > 0) {
+                LOGGER.atWarning().log("Config reload could not re-sync " + failures + " players");
+            }
+        });
+    }
+
+    /**
+     * Groups online players by their current world, optionally only those in one world.
+     */
+    @Nonnull
+    static Map<World, List<UUID>> playersByWorld(@Nullable UUID onlyWorld) {
+        Map<World, List<UUID>> byWorld = new HashMap<>();
+        for (PlayerRef player : Universe.get().getPlayers()) {
+            UUID worldUuid = player.getWorldUuid();
+            if (worldUuid == null || (onlyWorld != null && !onlyWorld.equals(worldUuid))) {
+                continue;
+            }
+            World world = Universe.get().getWorld(worldUuid);
+            if (world != null) {
+                byWorld.computeIfAbsent(world, ignored -> new ArrayList<>()).add(player.getUuid());
+            }
+        }
+        return byWorld;
+    }
+
+    /**
+     * Applies a settings change to many players and pushes it with one batched task per world, instead of one task per
+     * player. Settings are updated on the calling thread; each world's batch runs on its own world thread, so worlds
+     * proceed in parallel. The returned future completes once every batch has reported.
+     *
+     * @param playersByWorld players to update, grouped by the world they are in
+     * @param update settings change applied to each player, or the identity to only resync
+     * @param rescan whether to rescan each player's utility belt as well
+     */
+    @Nonnull
+    CompletableFuture<List<BulkSyncResult>> bulkSync(
+        @Nonnull Map<World, List<UUID>> playersByWorld,
+        @Nonnull UnaryOperator<PlayerLightState> update,
+        boolean rescan
+    ) {
+        List<CompletableFuture<BulkSyncResult>> batches = new ArrayList<>(playersByWorld.size());
+        for (Map.Entry<World, List<UUID>> entry : playersByWorld.entrySet()) {
+            World world = entry.getKey();
+            List<UUID> players = entry.getValue();
+            for (UUID playerUuid : players) {
+                updateState(playerUuid, update);
+            }
+            metrics.syncsRequested.add(players.size());
+
+            CompletableFuture<BulkSyncResult> batch = new CompletableFuture<>();
+            long requestedAt = System.nanoTime();
+            try {
+                world.execute(() -> {
+                    metrics.queueDelay.recordSince(requestedAt);
+                    batch.complete(pushBatch(world, players, rescan));
+                });
+            } catch (RuntimeException e) {
+                LOGGER.atWarning().withCause(e).log("Unable to schedule bulk brightness sync in world " + world.getName());
+                batch.complete(new BulkSyncResult(world.getName(), players.size(), players.size(), 0L));
+            }
+            batches.add(batch);
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> batches.stream().map(CompletableFuture::join).toList());
+    }
+
+    private BulkSyncResult pushBatch(@Nonnull World world, @Nonnull List<UUID> players, boolean rescan) {
+        long startedAt = System.nanoTime();
+        int failures = 0;
+        for (UUID playerUuid : players) {
+            try {
+                if (!pushSettingsOnWorldThread(world, playerUuid, false, rescan)) {
+                    failures++;
+                }
+            } catch (RuntimeException e) {
+                // One broken entity must not abort the rest of the batch.
+                LOGGER.atWarning().withCause(e).log("Bulk brightness sync failed for " + playerUuid);
+                failures++;
+            }
+        }
+        return new BulkSyncResult(world.getName(), players.size(), failures, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Copies the settings snapshot onto the player's {@link BrightnessPreference}, adding the component when a boost is
+     * requested, and marks it dirty. Returns {@code false} if the player is no longer in the world.
+     */
+    private boolean pushSettingsOnWorldThread(@Nonnull World world, @Nonnull UUID playerUuid, boolean announce, boolean rescan) {
+        long startedAt = System.nanoTime();
+        metrics.syncsExecuted.increment();
+        try {
+            return pushSettings(world, playerUuid, announce, rescan);
+        } finally {
+            metrics.pushTime.recordSince(startedAt);
+        }
+    }
+
+    /**
+     * Re-creates a reconnecting player's {@link BrightnessPreference} from their grace entry: the known torch slots skip
+     * the utility-belt scan and the remembered light is shown without fading in again. Returns {@code false} if the
+     * player is no longer in the world.
+     */
+    private boolean restoreOnWorldThread(
+        @Nonnull World world,
+        @Nonnull UUID playerUuid,
+        @Nonnull ReconnectGraceCache.Entry grace
+    ) {
+        EntityStore entityStore = world.getEntityStore();
+        Store<EntityStore> store = entityStore == null ? null : entityStore.getStore();
+        PlayerHandleCache.PlayerHandle handle = store == null ? null : playerHandles.resolve(world, entityStore, playerUuid);
+        PlayerLightState settings = states.getOrDefault(playerUuid, PlayerLightState.EMPTY);
+        if (handle == null || !settings.hasBrightness() || store.getComponent(handle.ref(), preferenceType) != null) {
+            // Nothing to restore onto (or the component survived the move); fall back to a regular push.
+            return pushSettingsOnWorldThread(world, playerUuid, false, true);
+        }
+
+        metrics.syncsExecuted.increment();
+        store.addComponent(handle.ref(), preferenceType, LightPipeline.restorePreference(settings, grace));
+        return true;
+    }
+
+    private boolean pushSettings(@Nonnull World world, @Nonnull UUID playerUuid, boolean announce, boolean rescan) {
         EntityStore entityStore = world.getEntityStore();
         if (entityStore == null) {
-            return;
+            return false;
         }
 
         Store<EntityStore> store = entityStore.getStore();
         if (store == null) {
-            return;
+            return false;
         }
 
-        Ref<EntityStore> playerRef = world.getEntityRef(playerUuid);
-        if (playerRef == null) {
-            playerRef = entityStore.getRefFromUUID(playerUuid);
+        PlayerHandleCache.PlayerHandle handle = playerHandles.resolve(world, entityStore, playerUuid);
+        if (handle == null) {
+            return false;
         }
-        if (playerRef == null) {
-            return;
+
+        PlayerLightState settings = states.getOrDefault(playerUuid, PlayerLightState.EMPTY);
+        BrightnessPreference current = store.getComponent(handle.ref(), preferenceType);
+        BrightnessPreference preference = LightPipeline.pushSettings(current, settings, announce, rescan);
+        if (preference == null) {
+            if (announce && handle.playerRef() != null) {
+                handle.playerRef().sendMessage(Message.raw("Brightness boost disabled."));
+            }
+        } else if (preference != current) {
+            store.addComponent(handle.ref(), preferenceType, preference);
         }
+        return true;
+    }
 
-        Player playerEntity = store.getComponent(playerRef, Player.getComponentType());
-        if (playerEntity == null) {
-            return;
+    /**
+     * Applies the light for a dirty preference. Called from {@link BrightnessLightSystem}, possibly in parallel for
+     * different entities; structural changes go through the command buffer.
+     */
+    void applyLight(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        @Nonnull Player playerEntity,
+        @Nullable PlayerRef player,
+        @Nullable DynamicLight dynamicLight,
+        int radiusCap,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        long startedAt = System.nanoTime();
+        boolean wasActive = preference.isActive();
+        LightTraceEvents.LightApply trace = new LightTraceEvents.LightApply();
+        trace.begin();
+        long lightBefore = trace.isEnabled() ? lightSnapshot(preference) : 0L;
+        int flagsBefore = trace.isEnabled() ? lightFlags(preference) : 0;
+        try {
+            preference.setRadiusCap(radiusCap);
+            applyDirtyPreference(ref, preference, playerEntity, player, dynamicLight, commandBuffer);
+        } finally {
+            if (player != null && preference.isActive() != wasActive) {
+                if (wasActive) {
+                    metrics.boostDeactivated(player.getUuid());
+                } else {
+                    metrics.boostActivated(player.getUuid(), playerEntity.getWorld().getName());
+                }
+            }
+            metrics.applyTime.recordSince(startedAt);
+            if (player != null && trace.isEnabled()) {
+                trace.commit(
+                    player.getUuid(),
+                    playerEntity.getWorld().getName(),
+                    applyOutcome(preference, lightBefore, flagsBefore),
+                    preference.displayedLight()
+                );
+            }
         }
+    }
+
+    /**
+     * Packs the shown light and fade target, which together with {@link #lightFlags} cover everything a light write or
+     * fade changes. Only used while tracing, to tell applied updates from no-ops.
+     */
+    private static long lightSnapshot(@Nonnull BrightnessPreference preference) {
+        return (long) preference.displayedLight() << 32 | (preference.fadeTarget() & 0xFFFFFFFFL);
+    }
 
-        PlayerRef player = store.getComponent(playerRef, PlayerRef.getComponentType());
+    private static int lightFlags(@Nonnull BrightnessPreference preference) {
+        return (preference.lightAttached() ? 1 : 0) | (preference.isFading() ? 2 : 0);
+    }
 
-        Float desired = desiredBrightness.get(playerUuid);
-        if (desired == null) {
-            boolean wasActive = activeBoost.remove(playerUuid);
-            if (wasActive) {
-                store.tryRemoveComponent(playerRef, DynamicLight.getComponentType());
+    @Nonnull
+    private static String applyOutcome(@Nonnull BrightnessPreference preference, long lightBefore, int flagsBefore) {
+        if (!preference.settings().hasBrightness()) {
+            return LightTraceEvents.OUTCOME_DISABLED;
+        }
+        if (preference.torchSlotsKnown() && preference.torchSlots() == 0L) {
+            return LightTraceEvents.OUTCOME_NO_TORCH;
+        }
+        boolean unchanged = lightSnapshot(preference) == lightBefore && lightFlags(preference) == flagsBefore;
+        return unchanged ? LightTraceEvents.OUTCOME_NO_OP : LightTraceEvents.OUTCOME_APPLIED;
+    }
+
+    private void applyDirtyPreference(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        @Nonnull Player playerEntity,
+        @Nullable PlayerRef player,
+        @Nullable DynamicLight dynamicLight,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        boolean announce = preference.consumeDirty();
+        PlayerLightState settings = preference.settings();
+
+        if (!settings.hasBrightness()) {
+            preference.setApplied(LightMath.NONE, LightMath.NONE);
+            stopFlicker(commandBuffer, preference);
+            // Keep the preference until a fade-out has finished and the density system has released its grid seat; both
+            // mark it dirty again when done. Releasing the seat here could promote another player from this worker.
+            boolean fading = transitionLight(ref, preference, dynamicLight, null, commandBuffer);
+            if (!fading && preference.densitySlot() < 0) {
+                commandBuffer.tryRemoveComponent(ref, preferenceType);
             }
-            torchBaseline.remove(playerUuid);
             if (announce && player != null) {
                 player.sendMessage(Message.raw("Brightness boost disabled."));
             }
             return;
         }
 
+        LightProfile profile = lightProfile;
         Inventory inventory = playerEntity.getInventory();
-        boolean hasTorch = hasTorchInUtilityBelt(inventory);
-
-        if (!hasTorch) {
-            if (activeBoost.remove(playerUuid)) {
-                store.tryRemoveComponent(playerRef, DynamicLight.getComponentType());
-                torchBaseline.remove(playerUuid);
+        ItemContainer utility = inventory == null ? null : inventory.getUtility();
+        int capacity = utility == null ? 0 : utility.getCapacity();
+        long torchSlots = LightPipeline.prepareBelt(preference, profile, utility, capacity, UTILITY_SLOTS, metrics);
+
+        if (torchSlots == 0L) {
+            boolean wasActive = preference.isActive();
+            preference.setApplied(LightMath.NONE, LightMath.NONE);
+            stopFlicker(commandBuffer, preference);
+            transitionLight(ref, preference, dynamicLight, null, commandBuffer);
+            if (wasActive) {
                 if (player != null) {
                     player.sendMessage(Message.raw("No torch in your utility belt. Brightness reverted to normal."));
                 }
@@ -156,33 +769,23 @@ public final class BrightnessService {
             return;
         }
 
-        float clamped = clamp(desired, MIN_BRIGHTNESS, MAX_BRIGHTNESS);
+        LightTuning tuning = profile.tuning();
+        float clamped = LightMath.clamp(settings.brightness(), tuning.minBrightness(), tuning.maxBrightness());
 
-        if (!activeBoost.contains(playerUuid)) {
-            DynamicLight existing = store.getComponent(playerRef, DynamicLight.getComponentType());
-            if (existing != null) {
-                ColorLight existingLight = existing.getColorLight();
-                if (existingLight != null) {
-                    torchBaseline.put(playerUuid, existingLight);
-                }
-            }
+        // Every light source in the belt contributes; a single torch combines to its own light.
+        int baseline = preference.lightMix().combined();
+        int brightnessLevel = LightPipeline.brightnessLevel(settings, preference, tuning, densitySettings);
+        int tintRgb = LightMath.resolveTintRgb(baseline, settings.tintRgb(), LightMath.warmthLevel(settings.warmth()), tuning);
+        ColorLight target = LightPipeline.targetLight(profile, settings, preference, brightnessLevel, baseline, tintRgb, metrics);
+        if (!settings.hasFlicker()) {
+            stopFlicker(commandBuffer, preference);
         }
-
-        ColorLight baseline = torchBaseline.get(playerUuid);
-        Integer tintRgb = desiredTintRgb.get(playerUuid);
-        Float warmth01 = desiredWarmth.get(playerUuid);
-        ColorLight requested = toLight(clamped, baseline, tintRgb, warmth01);
-        ColorLight target = baseline == null ? requested : maxLight(baseline, requested);
-
-        DynamicLight dynamicLight = store.getComponent(playerRef, DynamicLight.getComponentType());
-        if (dynamicLight == null) {
-            store.putComponent(playerRef, DynamicLight.getComponentType(), new DynamicLight(target));
-        } else {
-            dynamicLight.setColorLight(target);
+        preference.setApplied(baseline, LightMath.pack(target));
+        transitionLight(ref, preference, dynamicLight, target, commandBuffer);
+        if (settings.hasFlicker()) {
+            startFlicker(ref, preference, player, settings, brightnessLevel, baseline, tintRgb, commandBuffer);
         }
 
-        activeBoost.add(playerUuid);
-
         if (announce && player != null) {
             int unsignedRadius = Byte.toUnsignedInt(target.radius);
             int red = Byte.toUnsignedInt(target.red);
@@ -196,118 +799,186 @@ public final class BrightnessService {
         }
     }
 
-    private static boolean hasTorchInUtilityBelt(@Nullable Inventory inventory) {
-        if (inventory == null) {
-            return false;
-        }
-
-        if (isTorchItem(inventory.getUtilityItem())) {
+    /**
+     * Moves the boost light towards {@code target} ({@code null} detaches it), fading when configured. Returns
+     * {@code true} while a fade is still running.
+     */
+    private boolean transitionLight(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        @Nullable DynamicLight dynamicLight,
+        @Nullable ColorLight target,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        int targetLight = LightMath.pack(target);
+        int restoredLight = preference.consumeRestoredLight();
+        if (preference.isFading() && preference.fadeTarget() == targetLight) {
+            metrics.skippedLightWrites.increment();
             return true;
         }
 
-        ItemContainer utility = inventory.getUtility();
-        if (utility == null) {
+        int currentLight = dynamicLight == null ? LightMath.NONE : LightMath.pack(dynamicLight.getColorLight());
+        if (target == null) {
+            if (!preference.lightAttached() || dynamicLight == null) {
+                cancelFade(commandBuffer, preference);
+                preference.setDisplayed(false, LightMath.NONE);
+                return false;
+            }
+            if (LightMath.radius(currentLight) > 0 && startFade(ref, preference, currentLight, LightMath.NONE, commandBuffer)) {
+                return true;
+            }
+            commandBuffer.tryRemoveComponent(ref, DynamicLight.getComponentType());
+            preference.setDisplayed(false, LightMath.NONE);
+            metrics.lightWrites.increment();
             return false;
         }
 
-        final boolean[] hasTorch = {false};
-        utility.forEach((slot, stack) -> {
-            if (!hasTorch[0] && isTorchItem(stack)) {
-                hasTorch[0] = true;
+        if (dynamicLight == null) {
+            // Fade in from an invisible light of the same color, unless the player just had this light before
+            // reconnecting.
+            int fromLight = LightMath.withRadius(targetLight, 0);
+            if (restoredLight != targetLight && startFade(ref, preference, fromLight, targetLight, commandBuffer)) {
+                commandBuffer.putComponent(ref, DynamicLight.getComponentType(), new DynamicLight(LightMath.toColorLight(fromLight)));
+                preference.setDisplayed(true, fromLight);
+            } else {
+                commandBuffer.putComponent(ref, DynamicLight.getComponentType(), new DynamicLight(target));
+                preference.setDisplayed(true, targetLight);
             }
-        });
-        return hasTorch[0];
-    }
+            metrics.lightWrites.increment();
+            return preference.isFading();
+        }
 
-    private static boolean isTorchItem(@Nullable ItemStack stack) {
-        if (stack == null || stack.isEmpty()) {
+        boolean unchanged = currentLight == targetLight || preference.isFlickering();
+        if (!preference.isFading() && unchanged && preference.displayedLight() == targetLight) {
+            // Writing an identical light would still mark the component changed and replicate it to nearby clients; a
+            // flickering light legitimately differs from the target between frames.
+            metrics.skippedLightWrites.increment();
             return false;
         }
-        String itemId = stack.getItemId();
-        return itemId != null && itemId.contains("Torch");
+        if (startFade(ref, preference, currentLight, targetLight, commandBuffer)) {
+            preference.setDisplayed(true, currentLight);
+            return true;
+        }
+        dynamicLight.setColorLight(target);
+        preference.setDisplayed(true, targetLight);
+        metrics.lightWrites.increment();
+        return false;
     }
 
-    private static float clamp(float value, float min, float max) {
-        return Math.max(min, Math.min(max, value));
+    /**
+     * Registers a fade with the world's tracks. Returns {@code false} (and cancels any running fade) when the change
+     * should be instant.
+     */
+    private boolean startFade(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        int fromLight,
+        int toLight,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        float duration = fadeSettings.durationSeconds(fromLight, toLight);
+        if (duration <= 0.0f || fromLight == toLight) {
+            cancelFade(commandBuffer, preference);
+            return false;
+        }
+        LightFadeTracks tracks = commandBuffer.getResource(fadeTracksType);
+        if (tracks == null) {
+            return false;
+        }
+        tracks.start(ref, preference, fromLight, toLight, duration, fadeSettings.curve(fromLight, toLight));
+        return true;
     }
 
-    private static float normalize01(float value, float min, float max) {
-        float clamped = clamp(value, min, max);
-        if (max == min) {
-            return 0.0f;
+    /**
+     * Hands the light inputs to the world's flicker tracks, which modulate the target around them every few ticks.
+     */
+    private void startFlicker(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        @Nullable PlayerRef player,
+        @Nonnull PlayerLightState settings,
+        int brightnessLevel,
+        int baseline,
+        int tintRgb,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        LightFlickerTracks tracks = commandBuffer.getResource(flickerTracksType);
+        if (tracks == null) {
+            return;
         }
-        return (clamped - min) / (max - min);
+        int seed = player == null ? ref.hashCode() : player.getUuid().hashCode();
+        tracks.track(
+            ref,
+            preference,
+            seed,
+            brightnessLevel,
+            baseline,
+            tintRgb,
+            Math.round(LightMath.clamp(settings.flicker(), 0.0f, 1.0f) * LightMath.MAX_LEVEL),
+            flickerSettings.updateIntervalTicks()
+        );
     }
 
-    private static int lerpInt(int a, int b, float t) {
-        float clamped = clamp(t, 0.0f, 1.0f);
-        return Math.round(a + (b - a) * clamped);
+    private void stopFlicker(@Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull BrightnessPreference preference) {
+        if (!preference.isFlickering()) {
+            return;
+        }
+        LightFlickerTracks tracks = commandBuffer.getResource(flickerTracksType);
+        if (tracks != null) {
+            tracks.untrack(preference);
+        }
     }
 
-    private static ColorLight toLight(float scale, @Nullable ColorLight baseline, @Nullable Integer tintRgb, @Nullable Float warmth01) {
-        float t = normalize01(scale, MIN_BRIGHTNESS, MAX_BRIGHTNESS);
-        int baselineRadius = baseline == null ? MIN_LIGHT_RADIUS : Byte.toUnsignedInt(baseline.radius);
-        int baselineIntensity = baseline == null
-            ? Math.max(1, Math.round(MAX_LIGHT_INTENSITY * MIN_BRIGHTNESS))
-            : Math.max(
-                Math.max(Byte.toUnsignedInt(baseline.red), Byte.toUnsignedInt(baseline.green)),
-                Byte.toUnsignedInt(baseline.blue)
-            );
-
-        int startRadius = Math.max(MIN_LIGHT_RADIUS, Math.min(MAX_LIGHT_RADIUS, baselineRadius));
-        int startIntensity = Math.max(1, Math.min(MAX_LIGHT_INTENSITY, baselineIntensity));
-
-        int radius = lerpInt(startRadius, MAX_LIGHT_RADIUS, t);
-        int intensity = lerpInt(startIntensity, MAX_LIGHT_INTENSITY, t);
-
-        int[] tint = resolveTintRgb(baseline, tintRgb, warmth01);
-        int maxTint = Math.max(1, Math.max(tint[0], Math.max(tint[1], tint[2])));
-        int red = scaleTintChannel(tint[0], intensity, maxTint);
-        int green = scaleTintChannel(tint[1], intensity, maxTint);
-        int blue = scaleTintChannel(tint[2], intensity, maxTint);
-
-        return new ColorLight((byte) radius, (byte) red, (byte) green, (byte) blue);
+    private void cancelFade(@Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull BrightnessPreference preference) {
+        if (!preference.isFading()) {
+            return;
+        }
+        LightFadeTracks tracks = commandBuffer.getResource(fadeTracksType);
+        if (tracks != null) {
+            tracks.cancel(preference);
+        }
     }
 
-    private static ColorLight maxLight(@Nonnull ColorLight a, @Nonnull ColorLight b) {
-        int radius = Math.max(Byte.toUnsignedInt(a.radius), Byte.toUnsignedInt(b.radius));
-        int red = Math.max(Byte.toUnsignedInt(a.red), Byte.toUnsignedInt(b.red));
-        int green = Math.max(Byte.toUnsignedInt(a.green), Byte.toUnsignedInt(b.green));
-        int blue = Math.max(Byte.toUnsignedInt(a.blue), Byte.toUnsignedInt(b.blue));
-        return new ColorLight((byte) radius, (byte) red, (byte) green, (byte) blue);
-    }
+    /**
+     * Atomically replaces the player's snapshot with {@code update(current)} and queues it for persistence. Empty
+     * snapshots are removed so the map only holds players with actual state.
+     */
+    private void updateState(@Nonnull UUID playerUuid, @Nonnull UnaryOperator<PlayerLightState> update) {
+        while (true) {
+            PlayerLightState current = states.get(playerUuid);
+            PlayerLightState base = current == null ? PlayerLightState.EMPTY : current;
+            PlayerLightState next = update.apply(base);
+            if (next.equals(base)) {
+                return;
+            }
 
-    private static int[] resolveTintRgb(@Nullable ColorLight baseline, @Nullable Integer tintRgb, @Nullable Float warmth01) {
-        if (tintRgb != null) {
-            return new int[] {(tintRgb >> 16) & 0xFF, (tintRgb >> 8) & 0xFF, tintRgb & 0xFF};
+            boolean swapped;
+            if (current == null) {
+                swapped = next.isEmpty() || states.putIfAbsent(playerUuid, next) == null;
+            } else {
+                swapped = next.isEmpty() ? states.remove(playerUuid, current) : states.replace(playerUuid, current, next);
+            }
+            if (swapped) {
+                preferenceStore.save(playerUuid, next);
+                return;
+            }
         }
+    }
 
-        if (warmth01 != null) {
-            int baseRed = baseline == null ? 255 : Byte.toUnsignedInt(baseline.red);
-            int baseGreen = baseline == null ? 255 : Byte.toUnsignedInt(baseline.green);
-            int baseBlue = baseline == null ? 255 : Byte.toUnsignedInt(baseline.blue);
-
-            int warmRed = 255;
-            int warmGreen = 220;
-            int warmBlue = 170;
-
-            return new int[] {
-                lerpInt(baseRed, warmRed, warmth01),
-                lerpInt(baseGreen, warmGreen, warmth01),
-                lerpInt(baseBlue, warmBlue, warmth01)
-            };
+    /**
+     * Returns the bit mask of the utility slots a transaction touched, or {@link LightPipeline#UNKNOWN_SLOTS} if that
+     * cannot be told.
+     */
+    private static long modifiedSlots(@Nullable Transaction transaction, int capacity) {
+        if (transaction == null || capacity > LightPipeline.MAX_TRACKED_SLOTS) {
+            return LightPipeline.UNKNOWN_SLOTS;
         }
-
-        if (baseline == null) {
-            return new int[] {255, 255, 255};
+        long modified = 0L;
+        for (short slot = 0; slot < capacity; slot++) {
+            if (transaction.wasSlotModified(slot)) {
+                modified |= 1L << slot;
+            }
         }
-        return new int[] {Byte.toUnsignedInt(baseline.red), Byte.toUnsignedInt(baseline.green), Byte.toUnsignedInt(baseline.blue)};
-    }
-
-    private static int scaleTintChannel(int tintChannel, int intensity, int maxTint) {
-        int clampedTint = Math.max(0, Math.min(255, tintChannel));
-        int clampedIntensity = Math.max(0, Math.min(255, intensity));
-        int clampedMaxTint = Math.max(1, Math.min(255, maxTint));
-        return Math.max(0, Math.min(255, Math.round(clampedTint * (float) clampedIntensity / (float) clampedMaxTint)));
+        return modified;
     }
 }
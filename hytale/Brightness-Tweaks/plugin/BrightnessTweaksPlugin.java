@@ -1,9 +1,14 @@
 package org.example.plugin;
 
+import com.hypixel.hytale.component.ComponentType;
 import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
 import com.hypixel.hytale.server.core.event.events.entity.LivingEntityInventoryChangeEvent;
+import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
@@ -13,6 +18,10 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class serves as the entrypoint for your plugin. Use the setup method to register into game registries or add
@@ -22,9 +31,14 @@ public class BrightnessTweaksPlugin extends JavaPlugin {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    private final BrightnessService brightnessService = new BrightnessService();
+    private ScheduledExecutorService backgroundExecutor;
+    private PreferenceStore preferenceStore;
+    private BrightnessService brightnessService;
+    private BrightnessConfig config;
+    private ConfigWatcher configWatcher;
     private EventRegistration<?, ?> inventoryListener;
     private EventRegistration<?, ?> disconnectListener;
+    private EventRegistration<?, ?> worldJoinListener;
 
     public BrightnessTweaksPlugin(@Nonnull JavaPluginInit init) {
         super(init);
@@ -34,7 +48,72 @@ public class BrightnessTweaksPlugin extends JavaPlugin {
     @Override
     protected void setup() {
         LOGGER.atInfo().log("Setting up plugin " + this.getName());
+        this.config = BrightnessConfig.load(this.getDataDirectory());
+        ComponentType<EntityStore, BrightnessPreference> preferenceType = this.getEntityStoreRegistry()
+            .registerComponent(BrightnessPreference.class, BrightnessPreference::new);
+        this.backgroundExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, this.getName() + "-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.preferenceStore = new PreferenceStore(this.getDataDirectory(), backgroundExecutor);
+        preferenceStore.start(config.preferencesFlushSeconds());
+        ResourceType<EntityStore, LightFadeTracks> fadeTracksType = this.getEntityStoreRegistry()
+            .registerResource(LightFadeTracks.class, LightFadeTracks::new);
+        ResourceType<EntityStore, LightFlickerTracks> flickerTracksType = this.getEntityStoreRegistry()
+            .registerResource(LightFlickerTracks.class, LightFlickerTracks::new);
+        ResourceType<EntityStore, LoadGovernor> governorType = this.getEntityStoreRegistry()
+            .registerResource(LoadGovernor.class, LoadGovernor::new);
+        ResourceType<EntityStore, LightDensityGrid> densityGridType = this.getEntityStoreRegistry()
+            .registerResource(LightDensityGrid.class, LightDensityGrid::new);
+        int ambientCacheSections = config.ambientSettings().cacheSections();
+        ResourceType<EntityStore, AmbientLightCache> ambientCacheType = this.getEntityStoreRegistry()
+            .registerResource(AmbientLightCache.class, () -> new AmbientLightCache(ambientCacheSections));
+        BrightnessTypes types = new BrightnessTypes(
+            preferenceType,
+            fadeTracksType,
+            flickerTracksType,
+            governorType,
+            densityGridType,
+            ambientCacheType
+        );
+        this.brightnessService = new BrightnessService(config, types, preferenceStore);
+        this.getEntityStoreRegistry().registerSystem(new BrightnessLightSystem(brightnessService, preferenceType));
+        this.getEntityStoreRegistry().registerSystem(new LightFadeSystem(fadeTracksType, brightnessService));
+        this.getEntityStoreRegistry().registerSystem(new LightFlickerSystem(brightnessService, types, config));
+        this.getEntityStoreRegistry().registerSystem(
+            new BrightnessPreferenceLifecycleSystem(brightnessService, types, config.densitySettings())
+        );
+        if (config.densitySettings().enabled()) {
+            this.getEntityStoreRegistry().registerSystem(new LightDensitySystem(types, config.densitySettings()));
+        }
+        this.getEntityStoreRegistry().registerSystem(
+            new AmbientLightSystem(types, config.ambientSettings(), brightnessService.metrics())
+        );
+        this.getEntityStoreRegistry().registerSystem(
+            new AmbientInvalidationSystem<>(BreakBlockEvent.class, BreakBlockEvent::getTargetBlock, ambientCacheType)
+        );
+        this.getEntityStoreRegistry().registerSystem(
+            new AmbientInvalidationSystem<>(PlaceBlockEvent.class, PlaceBlockEvent::getTargetBlock, ambientCacheType)
+        );
+        if (config.governorSettings().enabled()) {
+            this.getEntityStoreRegistry().registerSystem(
+                new LoadGovernorSystem(governorType, brightnessService, config.governorSettings())
+            );
+            this.getEntityStoreRegistry().registerSystem(
+                new LoadGovernorLifecycleSystem(governorType, brightnessService.metrics())
+            );
+        }
         this.getCommandRegistry().registerCommand(new BrightnessCommand(brightnessService));
+        if (config.reconnectGraceSeconds() > 0) {
+            backgroundExecutor.scheduleWithFixedDelay(brightnessService::expireReconnectGrace, 1L, 1L, TimeUnit.SECONDS);
+        }
+        if (config.statsLogSeconds() > 0) {
+            long interval = config.statsLogSeconds();
+            backgroundExecutor.scheduleAtFixedRate(() -> {
+                LOGGER.atInfo().log("Brightness stats: " + String.join(" | ", brightnessService.statsReport()));
+            }, interval, interval, TimeUnit.SECONDS);
+        }
 
         this.inventoryListener = this.getEventRegistry().registerGlobal(LivingEntityInventoryChangeEvent.class, event -> {
             if (!(event.getEntity() instanceof Player playerEntity)) {
@@ -57,10 +136,23 @@ public class BrightnessTweaksPlugin extends JavaPlugin {
                 return;
             }
 
-            if (!brightnessService.hasState(playerRef.getUuid())) {
+            brightnessService.onInventoryChange(
+                playerEntity.getWorld(),
+                store,
+                ref,
+                playerRef.getUuid(),
+                playerEntity.getInventory(),
+                event.getItemContainer(),
+                event.getTransaction()
+            );
+        });
+
+        this.worldJoinListener = this.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, event -> {
+            PlayerRef playerRef = event.getHolder().getComponent(PlayerRef.getComponentType());
+            if (playerRef == null) {
                 return;
             }
-            brightnessService.syncPlayer(playerEntity.getWorld(), playerRef.getUuid(), false);
+            brightnessService.onPlayerAddedToWorld(event.getWorld(), playerRef.getUuid());
         });
 
         this.disconnectListener = this.getEventRegistry().register(PlayerDisconnectEvent.class, event -> {
@@ -68,8 +160,32 @@ public class BrightnessTweaksPlugin extends JavaPlugin {
         });
     }
 
+    @Override
+    protected void start() {
+        LightProfile profile = brightnessService.lightProfile();
+        int itemLights = profile.preload();
+        LOGGER.atInfo().log(
+            "Registered " + itemLights + " light-source items (" + profile.lightSources().size() + " ids classified), "
+                + profile.presets().size() + " light presets"
+        );
+        if (config.configWatch()) {
+            String threadName = this.getName() + "-ConfigWatch";
+            this.configWatcher = new ConfigWatcher(this.getDataDirectory(), threadName, brightnessService::reload);
+            try {
+                configWatcher.start();
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Unable to watch the config file, changes need a restart");
+                configWatcher = null;
+            }
+        }
+    }
+
     @Override
     protected void shutdown() {
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
         if (inventoryListener != null) {
             inventoryListener.unregister();
             inventoryListener = null;
@@ -78,5 +194,17 @@ public class BrightnessTweaksPlugin extends JavaPlugin {
             disconnectListener.unregister();
             disconnectListener = null;
         }
+        if (worldJoinListener != null) {
+            worldJoinListener.unregister();
+            worldJoinListener = null;
+        }
+        if (preferenceStore != null) {
+            preferenceStore.close();
+            preferenceStore = null;
+        }
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdown();
+            backgroundExecutor = null;
+        }
     }
 }
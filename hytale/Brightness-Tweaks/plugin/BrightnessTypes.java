@@ -0,0 +1,20 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The component and per-world resource types the plugin registers with the entity store.
+ */
+record BrightnessTypes(
+    @Nonnull ComponentType<EntityStore, BrightnessPreference> preference,
+    @Nonnull ResourceType<EntityStore, LightFadeTracks> fadeTracks,
+    @Nonnull ResourceType<EntityStore, LightFlickerTracks> flickerTracks,
+    @Nonnull ResourceType<EntityStore, LoadGovernor> governor,
+    @Nonnull ResourceType<EntityStore, LightDensityGrid> densityGrid,
+    @Nonnull ResourceType<EntityStore, AmbientLightCache> ambientCache
+) {
+}
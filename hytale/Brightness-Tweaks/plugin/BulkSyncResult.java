@@ -0,0 +1,18 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Outcome of one world's batched task in a bulk brightness change.
+ *
+ * @param worldName name of the world the batch ran in
+ * @param players players the batch was asked to update
+ * @param failures players that could not be updated (left the world, or the update threw)
+ * @param elapsedNanos time the batch spent on the world thread
+ */
+record BulkSyncResult(@Nonnull String worldName, int players, int failures, long elapsedNanos) {
+
+    int updated() {
+        return players - failures;
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free intern cache of computed {@link ColorLight} values keyed by a 64-bit input key. The table is 4-way
+ * set associative; each set evicts with a clock sweep over its reference bits. Hits allocate nothing, so players with
+ * the same settings and light source share one instance. Already packed lights, such as fade frames, are interned in the
+ * same table. Cached lights are shared and must never be mutated. Lights are computed with one fixed
+ * {@link LightTuning}; a tuning change gets a new cache.
+ */
+final class ColorLightCache {
+
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Entry> entries;
+    /**
+     * Clock reference bits and hands. Racy by design: a lost update only makes eviction slightly less accurate.
+     */
+    private final byte[] referenced;
+    private final byte[] hands;
+    private final int setMask;
+    private final LightTuning tuning;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ColorLightCache(int capacity, @Nonnull LightTuning tuning) {
+        this.tuning = tuning;
+        int sets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+        this.entries = new AtomicReferenceArray<>(sets * WAYS);
+        this.referenced = new byte[sets * WAYS];
+        this.hands = new byte[sets];
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * Builds the cache key for a boosted light from its quantized inputs.
+     */
+    static long key(int brightnessLevel, int baseline, int tintRgb) {
+        return (long) (brightnessLevel & 0xFF) << 56 | (baseline & 0xFFFFFFFFL) << 24 | (tintRgb & 0xFFFFFF);
+    }
+
+    /**
+     * Returns the interned light for the given inputs, computing it with {@link LightMath#toLight} on a miss.
+     */
+    @Nonnull
+    ColorLight boostedLight(int brightnessLevel, int baseline, int tintRgb) {
+        long key = key(brightnessLevel, baseline, tintRgb);
+        ColorLight cached = find(key, false);
+        if (cached != null) {
+            return cached;
+        }
+        ColorLight light = LightMath.toColorLight(LightMath.toLight(brightnessLevel, baseline, tintRgb, tuning));
+        insert(set(key), new Entry(key, false, light));
+        return light;
+    }
+
+    /**
+     * Returns the interned light for an already packed value. Packed entries are keyed by the packed light itself and
+     * flagged, so they never match a boosted light's key.
+     */
+    @Nonnull
+    ColorLight packedLight(int packed) {
+        long key = packed & 0xFFFFFFFFL;
+        ColorLight cached = find(key, true);
+        if (cached != null) {
+            return cached;
+        }
+        ColorLight light = LightMath.toColorLight(packed);
+        insert(set(key), new Entry(key, true, light));
+        return light;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int capacity() {
+        return entries.length();
+    }
+
+    double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0L ? 0.0 : hitCount / (double) total;
+    }
+
+    @Nullable
+    private ColorLight find(long key, boolean packed) {
+        int base = set(key) * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = entries.get(base + way);
+            if (entry != null && entry.key == key && entry.packed == packed) {
+                referenced[base + way] = 1;
+                hits.increment();
+                return entry.light;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void insert(int set, @Nonnull Entry entry) {
+        int base = set * WAYS;
+        int victim = -1;
+        for (int sweep = 0; sweep < WAYS * 2 && victim < 0; sweep++) {
+            int index = base + (hands[set]++ & (WAYS - 1));
+            if (entries.get(index) == null || referenced[index] == 0) {
+                victim = index;
+            } else {
+                referenced[index] = 0;
+            }
+        }
+        if (victim < 0) {
+            victim = base;
+        }
+
+        referenced[victim] = 1;
+        Entry previous = entries.getAndSet(victim, entry);
+        if (previous == null) {
+            size.incrementAndGet();
+        } else {
+            evictions.increment();
+        }
+    }
+
+    private int set(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & setMask;
+    }
+
+    private static final class Entry {
+
+        private final long key;
+        private final boolean packed;
+        private final ColorLight light;
+
+        private Entry(long key, boolean packed, @Nonnull ColorLight light) {
+            this.key = key;
+            this.packed = packed;
+            this.light = light;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the config file and hands every successfully parsed new version to a callback. A version with any invalid
+ * entry is logged and skipped, so the running settings stay in place. Runs on its own daemon thread, so parsing and
+ * validation never touch a world thread. Bursts of events (editors often write a file in several steps) are collapsed
+ * into one reload once the file has been quiet for a moment.
+ */
+final class ConfigWatcher {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long SETTLE_MILLIS = 250L;
+
+    private final Path directory;
+    private final Path file;
+    private final Consumer<BrightnessConfig> onReload;
+    private final String threadName;
+
+    private WatchService watchService;
+    private Thread thread;
+    private FileTime lastModified;
+
+    ConfigWatcher(@Nonnull Path dataDirectory, @Nonnull String threadName, @Nonnull Consumer<BrightnessConfig> onReload) {
+        this.directory = dataDirectory;
+        this.file = dataDirectory.resolve(BrightnessConfig.FILE_NAME);
+        this.threadName = threadName;
+        this.onReload = onReload;
+    }
+
+    void start() throws IOException {
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        lastModified = modifiedTime();
+        thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Unable to close config watcher");
+        }
+        thread.interrupt();
+        watchService = null;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = touchesConfig(key);
+                if (!key.reset()) {
+                    LOGGER.atWarning().log("Config directory " + directory + " is no longer watchable, stopping hot reload");
+                    return;
+                }
+                if (!touched) {
+                    continue;
+                }
+
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down.
+        }
+    }
+
+    private void reload() {
+        FileTime modified = modifiedTime();
+        if (modified == null || modified.equals(lastModified)) {
+            return;
+        }
+        lastModified = modified;
+
+        BrightnessConfig config;
+        try {
+            config = BrightnessConfig.read(file);
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Unable to read changed config " + file + ", keeping the current settings");
+            return;
+        } catch (IllegalArgumentException e) {
+            LOGGER.atWarning().log(e.getMessage() + " in " + file + ", keeping the current settings");
+            return;
+        }
+        try {
+            onReload.accept(config);
+        } catch (RuntimeException e) {
+            LOGGER.atSevere().withCause(e).log("Unable to apply changed config " + file);
+        }
+    }
+
+    private boolean touchesConfig(@Nonnull WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path changed && changed.getFileName().toString().equals(BrightnessConfig.FILE_NAME)) {
+                touched = true;
+            }
+        }
+        return touched;
+    }
+
+    private FileTime modifiedTime() {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.plugin;
+
+/**
+ * Configuration of the density light LOD.
+ *
+ * @param enabled whether crowded cells attenuate lights at all
+ * @param cellSize edge length of a grid cell in blocks
+ * @param fullLightsPerCell number of full-strength boosts allowed per cell
+ * @param attenuation brightness multiplier (0 - 1) for boosts beyond that number
+ */
+record DensitySettings(boolean enabled, int cellSize, int fullLightsPerCell, float attenuation) {
+}
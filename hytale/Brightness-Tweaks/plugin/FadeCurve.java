@@ -0,0 +1,43 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+
+/**
+ * Easing curves for light fades. Each maps linear progress (0 - 1) to interpolation progress (0 - 1).
+ */
+enum FadeCurve {
+    LINEAR,
+    SMOOTHSTEP,
+    EASE_IN,
+    EASE_OUT;
+
+    private static final FadeCurve[] VALUES = values();
+
+    float apply(float t) {
+        return switch (this) {
+            case LINEAR -> t;
+            case SMOOTHSTEP -> t * t * (3.0f - 2.0f * t);
+            case EASE_IN -> t * t;
+            case EASE_OUT -> 1.0f - (1.0f - t) * (1.0f - t);
+        };
+    }
+
+    /**
+     * Looks up a curve by its stored ordinal without allocating.
+     */
+    @Nonnull
+    static FadeCurve byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Parses a config value such as {@code ease-out}.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    @Nonnull
+    static FadeCurve parse(@Nonnull String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Fade durations and curves for boosted light changes. Fades that make the light larger use the fade-in settings,
+ * everything else (dimming, losing the last torch, disabling the boost) uses the fade-out settings. A duration of zero
+ * switches instantly.
+ */
+record FadeSettings(float fadeInSeconds, @Nonnull FadeCurve fadeInCurve, float fadeOutSeconds, @Nonnull FadeCurve fadeOutCurve) {
+
+    static final FadeSettings INSTANT = new FadeSettings(0.0f, FadeCurve.LINEAR, 0.0f, FadeCurve.LINEAR);
+
+    /**
+     * Returns the duration for a change from one packed light to another.
+     */
+    float durationSeconds(int fromLight, int toLight) {
+        return isFadeIn(fromLight, toLight) ? fadeInSeconds : fadeOutSeconds;
+    }
+
+    @Nonnull
+    FadeCurve curve(int fromLight, int toLight) {
+        return isFadeIn(fromLight, toLight) ? fadeInCurve : fadeOutCurve;
+    }
+
+    private static boolean isFadeIn(int fromLight, int toLight) {
+        return LightMath.radius(toLight) > LightMath.radius(fromLight);
+    }
+}
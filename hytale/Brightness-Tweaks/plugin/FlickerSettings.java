@@ -0,0 +1,8 @@
+package org.example.plugin;
+
+/**
+ * Limits for the flicker engine: at most {@code maxUpdatesPerTick} light writes per world tick, and at most one write
+ * per player every {@code updateIntervalTicks}.
+ */
+record FlickerSettings(int maxUpdatesPerTick, int updateIntervalTicks) {
+}
@@ -0,0 +1,23 @@
+package org.example.plugin;
+
+/**
+ * Configuration of the {@link LoadGovernor}.
+ *
+ * @param enabled whether the governor runs at all
+ * @param targetTickMillis expected world tick interval; sustained intervals above it count as load
+ * @param reducedRadius boost radius cap at {@link LightQuality#REDUCED}
+ * @param minimalRadius boost radius cap at {@link LightQuality#MINIMAL}
+ */
+record GovernorSettings(boolean enabled, int targetTickMillis, int reducedRadius, int minimalRadius) {
+
+    /**
+     * Returns the radius cap for a quality level.
+     */
+    int radiusCap(LightQuality quality) {
+        return switch (quality) {
+            case FULL -> LightMath.MAX_LIGHT_RADIUS;
+            case REDUCED -> reducedRadius;
+            case MINIMAL -> minimalRadius;
+        };
+    }
+}
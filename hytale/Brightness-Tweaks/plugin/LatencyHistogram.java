@@ -0,0 +1,88 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram safe for concurrent recording. Bucket {@code i} counts durations below {@code 2^i}
+ * microseconds, so recording is a leading-zero count plus one striped increment and never allocates. Percentiles are
+ * reported as the upper bound of their bucket.
+ */
+final class LatencyHistogram {
+
+    private static final int BUCKETS = 24;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading).
+     */
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    void record(long nanos) {
+        long clamped = Math.max(0L, nanos);
+        long micros = clamped / 1_000L;
+        int bucket = Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(clamped);
+        maxNanos.accumulate(clamped);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long meanMicros() {
+        long samples = count.sum();
+        return samples == 0L ? 0L : TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / samples);
+    }
+
+    long maxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    /**
+     * Returns an upper bound, in microseconds, for the given percentile (0.0 - 1.0).
+     */
+    long percentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long samples = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            samples += counts[i];
+        }
+        if (samples == 0L) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(percentile * samples);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? maxMicros() : 1L << i;
+            }
+        }
+        return maxMicros();
+    }
+
+    @Nonnull
+    String summary() {
+        return "n=" + count() + " mean=" + meanMicros() + "us p50<=" + percentileMicros(0.50) + "us p99<="
+            + percentileMicros(0.99) + "us max=" + maxMicros() + "us";
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Per-world spatial hash of boosted players. Each occupied cell keeps an intrusive linked list of its members and how
+ * many of them hold one of the cell's full-strength seats; everyone else gets an attenuated light. Players are moved
+ * between cells incrementally by {@link LightDensitySystem}, and a freed seat is handed to a waiting member of the same
+ * cell, so the work per move is bounded by the cell's population rather than the world's.
+ * <p>
+ * Only mutated from sequential contexts, {@link LightDensitySystem} and the preference lifecycle system, because
+ * handing a seat to another member writes that member's preference. The (possibly parallel) light system never touches
+ * the grid. The methods stay synchronized as a safeguard; the lock is uncontended.
+ */
+public final class LightDensityGrid implements Resource<EntityStore> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NIL = -1;
+
+    // Members, indexed by the slot stored on each preference.
+    private BrightnessPreference[] preferences = new BrightnessPreference[INITIAL_CAPACITY];
+    private long[] memberCells = new long[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Cells, indexed through cellIndex; freed indexes are reused.
+    private final LongIntMap cellIndex = new LongIntMap(INITIAL_CAPACITY);
+    private int[] heads = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] fullCounts = new int[INITIAL_CAPACITY];
+    private int[] freeCells = new int[INITIAL_CAPACITY];
+    private int freeCellCount;
+    private int cellCapacityUsed;
+
+    public LightDensityGrid() {
+    }
+
+    /**
+     * Packs a block position into a cell key for cells of {@code cellSize} blocks.
+     */
+    static long cellKey(double x, double y, double z, int cellSize) {
+        long cx = (long) Math.floor(x / cellSize);
+        long cy = (long) Math.floor(y / cellSize);
+        long cz = (long) Math.floor(z / cellSize);
+        return (cx & 0x1FFFFFL) << 42 | (cy & 0x1FFFFFL) << 21 | (cz & 0x1FFFFFL);
+    }
+
+    /**
+     * Adds the player to {@code cellKey}, or moves them there. Does nothing if they are already in that cell.
+     */
+    synchronized void place(@Nonnull BrightnessPreference preference, long cellKey, int fullLightsPerCell) {
+        int slot = preference.densitySlot();
+        if (slot >= 0) {
+            if (memberCells[slot] == cellKey) {
+                return;
+            }
+            unlink(slot, fullLightsPerCell);
+        } else {
+            ensureMemberCapacity(size + 1);
+            slot = size++;
+            preferences[slot] = preference;
+            preference.setDensitySlot(slot);
+        }
+        link(slot, cellKey, fullLightsPerCell);
+    }
+
+    /**
+     * Removes the player from the grid and restores a full-strength light for their next activation.
+     */
+    synchronized void remove(@Nonnull BrightnessPreference preference, int fullLightsPerCell) {
+        int slot = preference.densitySlot();
+        if (slot < 0 || slot >= size || preferences[slot] != preference) {
+            return;
+        }
+        unlink(slot, fullLightsPerCell);
+        preference.setDensitySlot(-1);
+        preference.setDensityFull(true);
+
+        int last = --size;
+        if (slot != last) {
+            moveMember(last, slot);
+        }
+        preferences[last] = null;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int cellCount() {
+        return cellIndex.size();
+    }
+
+    private void link(int slot, long cellKey, int fullLightsPerCell) {
+        int cell = cellIndex.get(cellKey);
+        if (cell == LongIntMap.MISSING) {
+            cell = allocateCell();
+            cellIndex.put(cellKey, cell);
+        }
+
+        memberCells[slot] = cellKey;
+        prev[slot] = NIL;
+        next[slot] = heads[cell];
+        if (heads[cell] != NIL) {
+            prev[heads[cell]] = slot;
+        }
+        heads[cell] = slot;
+        counts[cell]++;
+
+        boolean full = fullCounts[cell] < fullLightsPerCell;
+        if (full) {
+            fullCounts[cell]++;
+        }
+        setFull(preferences[slot], full);
+    }
+
+    private void unlink(int slot, int fullLightsPerCell) {
+        long cellKey = memberCells[slot];
+        int cell = cellIndex.get(cellKey);
+        if (cell == LongIntMap.MISSING) {
+            return;
+        }
+
+        if (prev[slot] != NIL) {
+            next[prev[slot]] = next[slot];
+        } else {
+            heads[cell] = next[slot];
+        }
+        if (next[slot] != NIL) {
+            prev[next[slot]] = prev[slot];
+        }
+        prev[slot] = NIL;
+        next[slot] = NIL;
+        counts[cell]--;
+
+        if (preferences[slot].densityFull()) {
+            fullCounts[cell]--;
+            promoteOne(cell, fullLightsPerCell);
+        }
+        if (counts[cell] == 0) {
+            cellIndex.remove(cellKey);
+            freeCells[freeCellCount++] = cell;
+        }
+    }
+
+    /**
+     * Hands a freed full-strength seat to the first attenuated member of the cell.
+     */
+    private void promoteOne(int cell, int fullLightsPerCell) {
+        if (fullCounts[cell] >= fullLightsPerCell) {
+            return;
+        }
+        for (int member = heads[cell]; member != NIL; member = next[member]) {
+            if (!preferences[member].densityFull()) {
+                fullCounts[cell]++;
+                setFull(preferences[member], true);
+                return;
+            }
+        }
+    }
+
+    private static void setFull(@Nonnull BrightnessPreference preference, boolean full) {
+        if (preference.densityFull() != full) {
+            preference.setDensityFull(full);
+            if (preference.isActive()) {
+                preference.markDirty(false);
+            }
+        }
+    }
+
+    /**
+     * Moves member {@code from} into slot {@code to}, repointing its list neighbours.
+     */
+    private void moveMember(int from, int to) {
+        preferences[to] = preferences[from];
+        memberCells[to] = memberCells[from];
+        next[to] = next[from];
+        prev[to] = prev[from];
+        if (prev[to] != NIL) {
+            next[prev[to]] = to;
+        } else {
+            int cell = cellIndex.get(memberCells[to]);
+            if (cell != LongIntMap.MISSING) {
+                heads[cell] = to;
+            }
+        }
+        if (next[to] != NIL) {
+            prev[next[to]] = to;
+        }
+        preferences[to].setDensitySlot(to);
+    }
+
+    private int allocateCell() {
+        int cell;
+        if (freeCellCount > 0) {
+            cell = freeCells[--freeCellCount];
+        } else {
+            if (cellCapacityUsed == heads.length) {
+                int capacity = heads.length * 2;
+                heads = Arrays.copyOf(heads, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                fullCounts = Arrays.copyOf(fullCounts, capacity);
+                freeCells = Arrays.copyOf(freeCells, capacity);
+            }
+            cell = cellCapacityUsed++;
+        }
+        heads[cell] = NIL;
+        counts[cell] = 0;
+        fullCounts[cell] = 0;
+        return cell;
+    }
+
+    private void ensureMemberCapacity(int required) {
+        if (required <= preferences.length) {
+            return;
+        }
+        int capacity = Math.max(required, preferences.length * 2);
+        preferences = Arrays.copyOf(preferences, capacity);
+        memberCells = Arrays.copyOf(memberCells, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+
+    /**
+     * Membership refers to live entities of one store, so a copy starts empty.
+     */
+    @Nonnull
+    @Override
+    public LightDensityGrid clone() {
+        return new LightDensityGrid();
+    }
+}
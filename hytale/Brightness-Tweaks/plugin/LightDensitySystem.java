@@ -0,0 +1,80 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps the world's {@link LightDensityGrid} in sync with boosted players' positions. A player who stays inside their
+ * cell costs a key computation; crossing a cell boundary relinks them, and seat changes mark the affected preferences
+ * dirty so {@link BrightnessLightSystem} re-applies them. Runs sequentially because the grid is shared per world and a
+ * move can change other players' preferences; this system and the lifecycle system are the only ones that mutate the
+ * grid.
+ */
+final class LightDensitySystem extends EntityTickingSystem<EntityStore> {
+
+    private final ComponentType<EntityStore, BrightnessPreference> preferenceType;
+    private final ResourceType<EntityStore, LightDensityGrid> gridType;
+    private final DensitySettings settings;
+    private final Query<EntityStore> query;
+
+    LightDensitySystem(@Nonnull BrightnessTypes types, @Nonnull DensitySettings settings) {
+        this.preferenceType = types.preference();
+        this.gridType = types.densityGrid();
+        this.settings = settings;
+        this.query = Query.and(preferenceType, TransformComponent.getComponentType());
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return query;
+    }
+
+    @Override
+    public void tick(
+        float dt,
+        int index,
+        @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        BrightnessPreference preference = archetypeChunk.getComponent(index, preferenceType);
+        if (preference == null) {
+            return;
+        }
+
+        LightDensityGrid grid = store.getResource(gridType);
+        if (grid == null) {
+            return;
+        }
+
+        if (!preference.isActive()) {
+            if (preference.densitySlot() >= 0) {
+                grid.remove(preference, settings.fullLightsPerCell());
+                if (!preference.settings().hasBrightness()) {
+                    // The light system kept the disabled boost's component until its seat was released here.
+                    preference.markDirty(false);
+                }
+            }
+            return;
+        }
+
+        TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+        Vector3d position = transform == null ? null : transform.getPosition();
+        if (position == null) {
+            return;
+        }
+        long cellKey = LightDensityGrid.cellKey(position.getX(), position.getY(), position.getZ(), settings.cellSize());
+        grid.place(preference, cellKey, settings.fullLightsPerCell());
+    }
+}
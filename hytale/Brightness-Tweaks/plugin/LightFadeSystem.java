@@ -0,0 +1,65 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.server.core.modules.entity.component.DynamicLight;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Steps every in-progress light fade of a world once per tick. The component is only written when the quantized light
+ * actually changes, and a world without fades costs one resource lookup. Frames are interned through the shared
+ * {@link ColorLightCache}; fade progress is quantized, so a fade has a bounded set of frames that players running the
+ * same transition share, and repeated frames allocate nothing.
+ */
+final class LightFadeSystem extends TickingSystem<EntityStore> {
+
+    private final ResourceType<EntityStore, LightFadeTracks> fadeTracksType;
+    private final BrightnessService brightnessService;
+    private final BrightnessMetrics metrics;
+    private final LightFadeTracks.FrameSink sink = this::emit;
+
+    LightFadeSystem(
+        @Nonnull ResourceType<EntityStore, LightFadeTracks> fadeTracksType,
+        @Nonnull BrightnessService brightnessService
+    ) {
+        this.fadeTracksType = fadeTracksType;
+        this.brightnessService = brightnessService;
+        this.metrics = brightnessService.metrics();
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        LightFadeTracks tracks = store.getResource(fadeTracksType);
+        if (tracks == null || tracks.size() == 0) {
+            return;
+        }
+
+        tracks.step(dt, store, sink);
+    }
+
+    private void emit(
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        int light,
+        boolean finished
+    ) {
+        if (light != preference.displayedLight()) {
+            DynamicLight dynamicLight = store.getComponent(ref, DynamicLight.getComponentType());
+            if (dynamicLight != null) {
+                dynamicLight.setColorLight(brightnessService.lightProfile().lightCache().packedLight(light));
+                preference.setDisplayed(true, light);
+                metrics.lightWrites.increment();
+            }
+        }
+        if (finished && (preference.appliedLight() == LightMath.NONE || light != preference.displayedLight())) {
+            // A finished fade-out still has to detach the component, and a frame that could not be written needs a
+            // regular apply; both happen in the light system on the next tick.
+            preference.markDirty(false);
+        }
+    }
+}
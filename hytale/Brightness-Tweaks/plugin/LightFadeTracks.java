@@ -0,0 +1,178 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Per-world set of in-progress light fades, stored as parallel primitive arrays so {@link LightFadeSystem} can step
+ * every fading player in one pass without allocating. Each fading {@link BrightnessPreference} remembers its slot, which
+ * makes retargeting and removal O(1). Fades are started from the (possibly parallel) light system, so mutations are
+ * synchronized; the lock is uncontended while stepping. That system only ever writes the preference of the entity it is
+ * ticking: {@link #cancel} just clears the player's own slot, and the sequential {@link #step} compacts the entry.
+ */
+public final class LightFadeTracks implements Resource<EntityStore> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Eased progress is rounded to this many steps, which bounds the distinct frames of a fade so they can be interned.
+     * The default fades take fewer ticks than that, so the steps are not visible.
+     */
+    private static final int FRAME_STEPS = 64;
+
+    private Ref<EntityStore>[] refs = newRefArray(INITIAL_CAPACITY);
+    private BrightnessPreference[] preferences = new BrightnessPreference[INITIAL_CAPACITY];
+    private int[] fromLights = new int[INITIAL_CAPACITY];
+    private int[] toLights = new int[INITIAL_CAPACITY];
+    private float[] elapsed = new float[INITIAL_CAPACITY];
+    private float[] durations = new float[INITIAL_CAPACITY];
+    private byte[] curves = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    public LightFadeTracks() {
+    }
+
+    /**
+     * Receives each interpolated frame. {@code finished} is set on the last frame of a fade.
+     */
+    @FunctionalInterface
+    interface FrameSink {
+
+        void accept(
+            @Nonnull Store<EntityStore> store,
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull BrightnessPreference preference,
+            int light,
+            boolean finished
+        );
+    }
+
+    /**
+     * Starts a fade, or restarts the player's current one from {@code fromLight} towards the new target.
+     */
+    synchronized void start(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        int fromLight,
+        int toLight,
+        float durationSeconds,
+        @Nonnull FadeCurve curve
+    ) {
+        int slot = preference.fadeSlot();
+        if (slot < 0 || slot >= size || preferences[slot] != preference) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            refs[slot] = ref;
+            preferences[slot] = preference;
+            preference.setFadeSlot(slot);
+        }
+        fromLights[slot] = fromLight;
+        toLights[slot] = toLight;
+        elapsed[slot] = 0.0f;
+        durations[slot] = durationSeconds;
+        curves[slot] = (byte) curve.ordinal();
+        preference.setFadeTarget(toLight);
+    }
+
+    /**
+     * Stops the player's fade, if any, leaving the light at its current frame. The entry stays in place, detached from
+     * the player, until the next {@link #step}.
+     */
+    synchronized void cancel(@Nonnull BrightnessPreference preference) {
+        int slot = preference.fadeSlot();
+        if (slot >= 0 && slot < size && preferences[slot] == preference) {
+            preference.setFadeSlot(-1);
+        }
+    }
+
+    /**
+     * Advances every fade by {@code dt} seconds and hands the frames to {@code sink}. Fades of removed entities,
+     * cancelled fades and finished fades are dropped in the same pass.
+     */
+    synchronized void step(float dt, @Nonnull Store<EntityStore> store, @Nonnull FrameSink sink) {
+        int slot = 0;
+        while (slot < size) {
+            Ref<EntityStore> ref = refs[slot];
+            if (!ref.isValid() || preferences[slot].fadeSlot() != slot) {
+                remove(slot);
+                continue;
+            }
+
+            float time = elapsed[slot] + dt;
+            float duration = durations[slot];
+            float progress = duration <= 0.0f ? 1.0f : Math.min(1.0f, time / duration);
+            float eased = Math.round(FadeCurve.byOrdinal(curves[slot]).apply(progress) * FRAME_STEPS) / (float) FRAME_STEPS;
+            int light = LightMath.lerpLight(fromLights[slot], toLights[slot], eased);
+            boolean finished = progress >= 1.0f;
+            BrightnessPreference preference = preferences[slot];
+            if (finished) {
+                remove(slot);
+            } else {
+                elapsed[slot] = time;
+                slot++;
+            }
+            sink.accept(store, ref, preference, light, finished);
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Swap-removes a slot, moving the last fade into it. Only called from {@link #step}, which runs sequentially, so it
+     * may update the moved player's slot. Detached entries no longer own their player's slot and leave it alone.
+     */
+    private void remove(int slot) {
+        if (preferences[slot].fadeSlot() == slot) {
+            preferences[slot].setFadeSlot(-1);
+        }
+        int last = --size;
+        if (slot != last) {
+            refs[slot] = refs[last];
+            preferences[slot] = preferences[last];
+            fromLights[slot] = fromLights[last];
+            toLights[slot] = toLights[last];
+            elapsed[slot] = elapsed[last];
+            durations[slot] = durations[last];
+            curves[slot] = curves[last];
+            if (preferences[slot].fadeSlot() == last) {
+                preferences[slot].setFadeSlot(slot);
+            }
+        }
+        refs[last] = null;
+        preferences[last] = null;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= refs.length) {
+            return;
+        }
+        int capacity = Math.max(required, refs.length * 2);
+        refs = Arrays.copyOf(refs, capacity);
+        preferences = Arrays.copyOf(preferences, capacity);
+        fromLights = Arrays.copyOf(fromLights, capacity);
+        toLights = Arrays.copyOf(toLights, capacity);
+        elapsed = Arrays.copyOf(elapsed, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        curves = Arrays.copyOf(curves, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Ref<EntityStore>[] newRefArray(int capacity) {
+        return (Ref<EntityStore>[]) new Ref<?>[capacity];
+    }
+
+    /**
+     * Fades reference live entities of one store, so a copy starts empty.
+     */
+    @Nonnull
+    @Override
+    public LightFadeTracks clone() {
+        return new LightFadeTracks();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.protocol.ColorLight;
+import com.hypixel.hytale.server.core.modules.entity.component.DynamicLight;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Evaluates flicker for every flickering player of a world once per tick, within a per-tick write budget. Frames are
+ * interned through the shared {@link ColorLightCache}, so steady flicker allocates nothing. Under load the world's
+ * {@link LoadGovernor} divides the budget and update rate and caps the radius.
+ */
+final class LightFlickerSystem extends TickingSystem<EntityStore> {
+
+    private final ResourceType<EntityStore, LightFlickerTracks> flickerTracksType;
+    private final ResourceType<EntityStore, LoadGovernor> governorType;
+    private final BrightnessService brightnessService;
+    private final BrightnessMetrics metrics;
+    private final FlickerSettings settings;
+    private final GovernorSettings governorSettings;
+    private final LightFlickerTracks.FrameSink sink = this::emit;
+
+    LightFlickerSystem(
+        @Nonnull BrightnessService brightnessService,
+        @Nonnull BrightnessTypes types,
+        @Nonnull BrightnessConfig config
+    ) {
+        this.flickerTracksType = types.flickerTracks();
+        this.governorType = types.governor();
+        this.brightnessService = brightnessService;
+        this.metrics = brightnessService.metrics();
+        this.settings = config.flickerSettings();
+        this.governorSettings = config.governorSettings();
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        LightFlickerTracks tracks = store.getResource(flickerTracksType);
+        if (tracks == null || tracks.size() == 0) {
+            return;
+        }
+
+        int divisor = quality(store).updateDivisor();
+        int maxUpdates = Math.max(1, settings.maxUpdatesPerTick() / divisor);
+        tracks.step(store, maxUpdates, settings.updateIntervalTicks() * divisor, sink);
+    }
+
+    private boolean emit(
+        @Nonnull Store<EntityStore> store,
+        @Nonnull Ref<EntityStore> ref,
+        int brightnessLevel,
+        int baseline,
+        int tintRgb
+    ) {
+        DynamicLight dynamicLight = store.getComponent(ref, DynamicLight.getComponentType());
+        if (dynamicLight == null) {
+            return false;
+        }
+
+        ColorLightCache lightCache = brightnessService.lightProfile().lightCache();
+        ColorLight light = lightCache.boostedLight(brightnessLevel, baseline, tintRgb);
+        int packed = LightMath.pack(light);
+        int radiusCap = Math.max(governorSettings.radiusCap(quality(store)), LightMath.radius(baseline));
+        if (LightMath.radius(packed) > radiusCap) {
+            packed = LightMath.withRadius(packed, radiusCap);
+            light = null;
+        }
+        if (packed == LightMath.pack(dynamicLight.getColorLight())) {
+            return false;
+        }
+        dynamicLight.setColorLight(light != null ? light : lightCache.packedLight(packed));
+        metrics.flickerWrites.increment();
+        return true;
+    }
+
+    @Nonnull
+    private LightQuality quality(@Nonnull Store<EntityStore> store) {
+        LoadGovernor governor = store.getResource(governorType);
+        return governor == null ? LightQuality.FULL : governor.quality();
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Per-world set of flickering players, stored as parallel primitive arrays of the light inputs (brightness level,
+ * baseline, tint, flicker amount). {@link LightFlickerSystem} evaluates them in bulk each tick. Each preference
+ * remembers its slot, so updates and removal are O(1). Mutations come from the (possibly parallel) light system and are
+ * synchronized. That system only ever writes the preference of the entity it is ticking: {@link #untrack} just clears
+ * the player's own slot, and the sequential {@link #step} compacts the entry, since moving another player's entry
+ * would rewrite that player's slot from a worker thread.
+ */
+public final class LightFlickerTracks implements Resource<EntityStore> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Ref<EntityStore>[] refs = newRefArray(INITIAL_CAPACITY);
+    private BrightnessPreference[] preferences = new BrightnessPreference[INITIAL_CAPACITY];
+    private int[] seeds = new int[INITIAL_CAPACITY];
+    private int[] levels = new int[INITIAL_CAPACITY];
+    private int[] baselines = new int[INITIAL_CAPACITY];
+    private int[] tints = new int[INITIAL_CAPACITY];
+    private int[] amounts = new int[INITIAL_CAPACITY];
+    private int[] lastUpdateTicks = new int[INITIAL_CAPACITY];
+    private int[] lastLevels = new int[INITIAL_CAPACITY];
+    private int size;
+    private int tick;
+    private int cursor;
+
+    public LightFlickerTracks() {
+    }
+
+    /**
+     * Writes one flicker frame. Returns {@code true} if the component was actually written.
+     */
+    @FunctionalInterface
+    interface FrameSink {
+
+        boolean accept(
+            @Nonnull Store<EntityStore> store,
+            @Nonnull Ref<EntityStore> ref,
+            int brightnessLevel,
+            int baseline,
+            int tintRgb
+        );
+    }
+
+    /**
+     * Starts or updates flicker for a player around the given light inputs.
+     */
+    synchronized void track(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull BrightnessPreference preference,
+        int seed,
+        int brightnessLevel,
+        int baseline,
+        int tintRgb,
+        int amountLevel,
+        int updateIntervalTicks
+    ) {
+        int slot = preference.flickerSlot();
+        if (slot < 0 || slot >= size || preferences[slot] != preference) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            refs[slot] = ref;
+            preferences[slot] = preference;
+            preference.setFlickerSlot(slot);
+            // Stagger first updates so players added on the same tick do not update in lockstep.
+            lastUpdateTicks[slot] = tick - slot % Math.max(1, updateIntervalTicks);
+        }
+        seeds[slot] = seed;
+        levels[slot] = brightnessLevel;
+        baselines[slot] = baseline;
+        tints[slot] = tintRgb;
+        amounts[slot] = amountLevel;
+        lastLevels[slot] = -1;
+    }
+
+    /**
+     * Stops flicker for a player. The entry stays in place, detached from the player, until the next {@link #step}.
+     */
+    synchronized void untrack(@Nonnull BrightnessPreference preference) {
+        int slot = preference.flickerSlot();
+        if (slot >= 0 && slot < size && preferences[slot] == preference) {
+            preference.setFlickerSlot(-1);
+        }
+    }
+
+    /**
+     * Advances one tick and evaluates due players round-robin from where the previous tick stopped. A player is due
+     * once every {@code updateIntervalTicks}; at most {@code maxUpdates} frames are written, and frames whose quantized
+     * level did not change, or whose player is mid-fade, are not written at all. Entries of removed entities and
+     * untracked players are compacted along the way.
+     */
+    synchronized void step(
+        @Nonnull Store<EntityStore> store,
+        int maxUpdates,
+        int updateIntervalTicks,
+        @Nonnull FrameSink sink
+    ) {
+        tick++;
+        int remaining = size;
+        int budget = maxUpdates;
+        int slot = cursor;
+        while (remaining > 0 && budget > 0 && size > 0) {
+            if (slot >= size) {
+                slot = 0;
+            }
+            remaining--;
+
+            Ref<EntityStore> ref = refs[slot];
+            if (!ref.isValid() || preferences[slot].flickerSlot() != slot) {
+                remove(slot);
+                continue;
+            }
+            if (tick - lastUpdateTicks[slot] < updateIntervalTicks || preferences[slot].isFading()) {
+                slot++;
+                continue;
+            }
+
+            lastUpdateTicks[slot] = tick;
+            float noise = LightMath.flickerNoise(seeds[slot], tick);
+            int level = LightMath.flickerLevel(levels[slot], amounts[slot], noise);
+            if (level != lastLevels[slot] && sink.accept(store, ref, level, baselines[slot], tints[slot])) {
+                lastLevels[slot] = level;
+                budget--;
+            }
+            slot++;
+        }
+        cursor = slot;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Swap-removes a slot, moving the last entry into it. Only called from {@link #step}, which runs sequentially, so it
+     * may update the moved player's slot. Detached entries no longer own their player's slot and leave it alone.
+     */
+    private void remove(int slot) {
+        if (preferences[slot].flickerSlot() == slot) {
+            preferences[slot].setFlickerSlot(-1);
+        }
+        int last = --size;
+        if (slot != last) {
+            refs[slot] = refs[last];
+            preferences[slot] = preferences[last];
+            seeds[slot] = seeds[last];
+            levels[slot] = levels[last];
+            baselines[slot] = baselines[last];
+            tints[slot] = tints[last];
+            amounts[slot] = amounts[last];
+            lastUpdateTicks[slot] = lastUpdateTicks[last];
+            lastLevels[slot] = lastLevels[last];
+            if (preferences[slot].flickerSlot() == last) {
+                preferences[slot].setFlickerSlot(slot);
+            }
+        }
+        refs[last] = null;
+        preferences[last] = null;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= refs.length) {
+            return;
+        }
+        int capacity = Math.max(required, refs.length * 2);
+        refs = Arrays.copyOf(refs, capacity);
+        preferences = Arrays.copyOf(preferences, capacity);
+        seeds = Arrays.copyOf(seeds, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        baselines = Arrays.copyOf(baselines, capacity);
+        tints = Arrays.copyOf(tints, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        lastUpdateTicks = Arrays.copyOf(lastUpdateTicks, capacity);
+        lastLevels = Arrays.copyOf(lastLevels, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Ref<EntityStore>[] newRefArray(int capacity) {
+        return (Ref<EntityStore>[]) new Ref<?>[capacity];
+    }
+
+    /**
+     * Tracks reference live entities of one store, so a copy starts empty.
+     */
+    @Nonnull
+    @Override
+    public LightFlickerTracks clone() {
+        return new LightFlickerTracks();
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Primitive light math on lights packed into an int as {@code 0xSSRRGGBB} (radius, red, green, blue). A packed value of
+ * {@link #NONE} means "no light". Nothing in here allocates except {@link #toColorLight(int)}.
+ */
+final class LightMath {
+
+    static final int NONE = 0;
+    static final int NO_WARMTH = -1;
+    static final int MAX_LEVEL = 255;
+
+    /**
+     * Hard limits for boosted lights; the configured {@link LightTuning} ranges lie within them.
+     */
+    static final int MIN_LIGHT_RADIUS = 1;
+    static final int MAX_LIGHT_RADIUS = 32;
+    static final int MAX_LIGHT_INTENSITY = 255;
+
+    /**
+     * Brightness levels a full-amount flicker dips below the target; dips are quantized to {@link #FLICKER_LEVEL_STEP}
+     * so flickering players share cached lights.
+     */
+    static final int FLICKER_DEPTH_LEVELS = 96;
+    static final int FLICKER_LEVEL_STEP = 4;
+
+    /**
+     * Ambient light levels (0 - 15) at or below which auto mode applies the full boost, and at or above which it
+     * applies none.
+     */
+    static final int AMBIENT_DARK = 3;
+    static final int AMBIENT_LIT = 12;
+
+    private static final int WHITE_RGB = pack(0, 255, 255, 255);
+
+    private LightMath() {
+    }
+
+    static int pack(int radius, int red, int green, int blue) {
+        return (radius & 0xFF) << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | (blue & 0xFF);
+    }
+
+    static int pack(@Nullable ColorLight light) {
+        if (light == null) {
+            return NONE;
+        }
+        return pack(light.radius, light.red, light.green, light.blue);
+    }
+
+    static int radius(int packed) {
+        return packed >>> 24;
+    }
+
+    static int red(int packed) {
+        return (packed >>> 16) & 0xFF;
+    }
+
+    static int green(int packed) {
+        return (packed >>> 8) & 0xFF;
+    }
+
+    static int blue(int packed) {
+        return packed & 0xFF;
+    }
+
+    static int withRadius(int packed, int radius) {
+        return (radius & 0xFF) << 24 | (packed & 0xFFFFFF);
+    }
+
+    static ColorLight toColorLight(int packed) {
+        return new ColorLight((byte) radius(packed), (byte) red(packed), (byte) green(packed), (byte) blue(packed));
+    }
+
+    /**
+     * Quantizes a brightness value to a level from 0 to {@link #MAX_LEVEL} across the tuned brightness range.
+     */
+    static int brightnessLevel(float brightness, @Nonnull LightTuning tuning) {
+        return Math.round(normalize01(brightness, tuning.minBrightness(), tuning.maxBrightness()) * MAX_LEVEL);
+    }
+
+    /**
+     * Quantizes a 0.0 - 1.0 warmth to a level, or returns {@link #NO_WARMTH} for {@link Float#NaN}.
+     */
+    static int warmthLevel(float warmth01) {
+        if (Float.isNaN(warmth01)) {
+            return NO_WARMTH;
+        }
+        return Math.round(clamp(warmth01, 0.0f, 1.0f) * MAX_LEVEL);
+    }
+
+    /**
+     * Resolves the tint of the boosted light as packed RGB: a custom tint wins, then warmth blends the baseline toward a
+     * warm torch tint, otherwise the baseline tint (white without a baseline) is kept.
+     */
+    static int resolveTintRgb(int baseline, int tintRgb, int warmthLevel, @Nonnull LightTuning tuning) {
+        if (tintRgb != PlayerLightState.NO_TINT) {
+            return tintRgb & 0xFFFFFF;
+        }
+
+        int base = baseline == NONE ? WHITE_RGB : baseline & 0xFFFFFF;
+        if (warmthLevel != NO_WARMTH) {
+            float t = warmthLevel / (float) MAX_LEVEL;
+            int warm = tuning.warmRgb();
+            return pack(
+                0,
+                lerpInt(red(base), red(warm), t),
+                lerpInt(green(base), green(warm), t),
+                lerpInt(blue(base), blue(warm), t)
+            );
+        }
+        return base;
+    }
+
+    /**
+     * Computes the boosted light for a brightness level, blending from the baseline toward the maximum radius and
+     * intensity, and never dropping below the baseline itself.
+     */
+    static int toLight(int brightnessLevel, int baseline, int tintRgb, @Nonnull LightTuning tuning) {
+        float t = brightnessLevel / (float) MAX_LEVEL;
+        int baselineRadius = baseline == NONE ? tuning.minRadius() : radius(baseline);
+        int baselineIntensity = baseline == NONE
+            ? tuning.minIntensity()
+            : Math.max(Math.max(red(baseline), green(baseline)), blue(baseline));
+
+        int startRadius = Math.max(tuning.minRadius(), Math.min(tuning.maxRadius(), baselineRadius));
+        int startIntensity = Math.max(1, Math.min(tuning.maxIntensity(), baselineIntensity));
+
+        int radius = lerpInt(startRadius, tuning.maxRadius(), t);
+        int intensity = lerpInt(startIntensity, tuning.maxIntensity(), t);
+
+        int maxTint = Math.max(1, Math.max(red(tintRgb), Math.max(green(tintRgb), blue(tintRgb))));
+        int requested = pack(
+            radius,
+            scaleTintChannel(red(tintRgb), intensity, maxTint),
+            scaleTintChannel(green(tintRgb), intensity, maxTint),
+            scaleTintChannel(blue(tintRgb), intensity, maxTint)
+        );
+        return baseline == NONE ? requested : maxLight(baseline, requested);
+    }
+
+    static int maxLight(int a, int b) {
+        return pack(
+            Math.max(radius(a), radius(b)),
+            Math.max(red(a), red(b)),
+            Math.max(green(a), green(b)),
+            Math.max(blue(a), blue(b))
+        );
+    }
+
+    static int scaleTintChannel(int tintChannel, int intensity, int maxTint) {
+        int clampedTint = Math.max(0, Math.min(255, tintChannel));
+        int clampedIntensity = Math.max(0, Math.min(255, intensity));
+        int clampedMaxTint = Math.max(1, Math.min(255, maxTint));
+        return Math.max(0, Math.min(255, Math.round(clampedTint * (float) clampedIntensity / (float) clampedMaxTint)));
+    }
+
+    static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    static float normalize01(float value, float min, float max) {
+        float clamped = clamp(value, min, max);
+        if (max == min) {
+            return 0.0f;
+        }
+        return (clamped - min) / (max - min);
+    }
+
+    static int lerpInt(int a, int b, float t) {
+        float clamped = clamp(t, 0.0f, 1.0f);
+        return Math.round(a + (b - a) * clamped);
+    }
+
+    /**
+     * Interpolates every channel of two packed lights; {@code t} is clamped to 0 - 1.
+     */
+    static int lerpLight(int from, int to, float t) {
+        return pack(
+            lerpInt(radius(from), radius(to), t),
+            lerpInt(red(from), red(to), t),
+            lerpInt(green(from), green(to), t),
+            lerpInt(blue(from), blue(to), t)
+        );
+    }
+
+    /**
+     * Scales a brightness level for auto mode by how dark the surroundings are, easing between {@link #AMBIENT_DARK}
+     * and {@link #AMBIENT_LIT}. An unknown (negative) ambient level keeps the full boost.
+     */
+    static int ambientBrightnessLevel(int brightnessLevel, int ambientLight) {
+        if (ambientLight < 0) {
+            return brightnessLevel;
+        }
+        float t = normalize01(ambientLight, AMBIENT_DARK, AMBIENT_LIT);
+        return Math.round(brightnessLevel * (1.0f - t * t * (3.0f - 2.0f * t)));
+    }
+
+    /**
+     * Returns the brightness level for one flicker frame: the target level dipped by up to
+     * {@link #FLICKER_DEPTH_LEVELS} scaled by amount and noise. Feeding it back into {@link #toLight} keeps the frame
+     * tinted like the target and never below the baseline.
+     */
+    static int flickerLevel(int brightnessLevel, int amountLevel, float noise) {
+        int dip = Math.round(FLICKER_DEPTH_LEVELS * (amountLevel / (float) MAX_LEVEL) * noise);
+        dip -= dip % FLICKER_LEVEL_STEP;
+        return Math.max(0, brightnessLevel - dip);
+    }
+
+    /**
+     * Deterministic flame-like noise in 0 - 1 for a seed and tick: a slow smoothed value-noise swell plus a faster
+     * crackle.
+     */
+    static float flickerNoise(int seed, int tick) {
+        float swell = smoothNoise(seed, tick, 3);
+        float crackle = smoothNoise(seed ^ 0x5BD1E995, tick, 1);
+        return swell * 0.7f + crackle * 0.3f;
+    }
+
+    private static float smoothNoise(int seed, int tick, int shift) {
+        int cell = tick >> shift;
+        int period = 1 << shift;
+        float f = (tick & (period - 1)) / (float) period;
+        f = f * f * (3.0f - 2.0f * f);
+        float a = hash01(seed, cell);
+        float b = hash01(seed, cell + 1);
+        return a + (b - a) * f;
+    }
+
+    private static float hash01(int seed, int x) {
+        int h = seed * 0x9E3779B9 + x * 0x85EBCA6B;
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        h *= 0x846CA68B;
+        h ^= h >>> 16;
+        return (h >>> 8) / (float) (1 << 24);
+    }
+}
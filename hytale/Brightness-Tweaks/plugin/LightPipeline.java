@@ -0,0 +1,305 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Server-independent steps of a light update: tracking the utility belt, deciding what a settings push changes and
+ * computing the target light. {@link BrightnessService} runs them against real entities; the load simulator and the
+ * benchmarks run the same code against stand-ins, so their numbers measure the plugin as built. Containers are generic
+ * so the stand-ins can use plain arrays. Nothing in here allocates except a new preference.
+ */
+final class LightPipeline {
+
+    /**
+     * Utility belts are far smaller than this; larger containers fall back to a full scan on every change.
+     */
+    static final int MAX_TRACKED_SLOTS = Long.SIZE;
+
+    /**
+     * Slot mask meaning "any slot may have changed", which rescans the belt.
+     */
+    static final long UNKNOWN_SLOTS = -1L;
+
+    /**
+     * How an inventory change relates to the utility belt.
+     */
+    enum BeltChange {
+        /**
+         * A known container other than the belt changed; the belt is untouched.
+         */
+        NONE,
+        /**
+         * The belt itself changed; only the modified slots need a look.
+         */
+        SLOTS,
+        /**
+         * A combined or unknown container changed, which may hide a belt change.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Classifies the item in one slot of a container. Implementations should be non-capturing, so passing one never
+     * allocates.
+     *
+     * @param <C> the container type
+     */
+    @FunctionalInterface
+    interface SlotClassifier<C> {
+
+        @Nonnull
+        LightSource classify(@Nonnull LightSourceRegistry lightSources, @Nonnull C container, int slot);
+    }
+
+    private LightPipeline() {
+    }
+
+    /**
+     * Tells belt changes from changes to the player's other containers. Costs a few reference comparisons.
+     */
+    @Nonnull
+    static <C> BeltChange beltChange(
+        @Nullable C changed,
+        @Nullable C utility,
+        @Nullable C hotbar,
+        @Nullable C storage,
+        @Nullable C backpack,
+        @Nullable C armor
+    ) {
+        if (changed != null && changed != utility
+            && (changed == hotbar || changed == storage || changed == backpack || changed == armor)) {
+            return BeltChange.NONE;
+        }
+        return changed == utility && utility != null ? BeltChange.SLOTS : BeltChange.UNKNOWN;
+    }
+
+    /**
+     * Drops the torch tracking so the next apply rescans the belt, and marks the light dirty.
+     */
+    static void forgetBelt(@Nonnull BrightnessPreference preference) {
+        preference.setTorchSlots(0L, false);
+        preference.markDirty(false);
+    }
+
+    /**
+     * Updates torch tracking after a belt change and marks the light dirty only if torch presence or the combined light
+     * changed. Only the modified slots are re-classified unless the mix has to be rebuilt. Returns {@code true} if the
+     * light was marked dirty.
+     *
+     * @param modifiedSlots bit mask of the slots the change touched, or {@link #UNKNOWN_SLOTS}
+     */
+    static <C> boolean beltChanged(
+        @Nonnull BrightnessPreference preference,
+        @Nonnull LightProfile profile,
+        @Nonnull C utility,
+        int capacity,
+        @Nonnull SlotClassifier<C> classifier,
+        long modifiedSlots,
+        @Nonnull BrightnessMetrics metrics
+    ) {
+        if (!preference.torchSlotsKnown()) {
+            forgetBelt(preference);
+            return true;
+        }
+
+        long previous = preference.torchSlots();
+        LightSourceMix lightMix = preference.lightMix();
+        int previousLight = lightMix.combined();
+        long torchSlots;
+        if (modifiedSlots == UNKNOWN_SLOTS || capacity > MAX_TRACKED_SLOTS || !lightMix.isValid()) {
+            metrics.utilityScans.increment();
+            torchSlots = scanBelt(lightMix, profile, utility, capacity, classifier);
+        } else {
+            torchSlots = previous;
+            LightSourceRegistry lightSources = profile.lightSources();
+            for (long remaining = modifiedSlots; remaining != 0L; remaining &= remaining - 1) {
+                int slot = Long.numberOfTrailingZeros(remaining);
+                if (slot < capacity) {
+                    // Only the touched slot's contribution moves; the rest of the mix stays as it was.
+                    torchSlots = setSlot(torchSlots, lightMix, slot, classifier.classify(lightSources, utility, slot));
+                }
+            }
+        }
+        preference.setTorchSlots(torchSlots, true);
+        if ((torchSlots != 0L) != (previous != 0L) || lightMix.combined() != previousLight) {
+            preference.markDirty(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Brings torch tracking in line with the belt before a light is applied: an unknown or out-of-date mask rescans the
+     * belt, and torch slots carried over without the belt contents (reconnect, world change) classify just those slots.
+     * Returns the torch slots.
+     *
+     * @param utility the belt, or {@code null} (with a capacity of 0) if the player has none
+     */
+    static <C> long prepareBelt(
+        @Nonnull BrightnessPreference preference,
+        @Nonnull LightProfile profile,
+        @Nullable C utility,
+        int capacity,
+        @Nonnull SlotClassifier<C> classifier,
+        @Nonnull BrightnessMetrics metrics
+    ) {
+        long torchSlots = preference.torchSlots();
+        LightSourceMix lightMix = preference.lightMix();
+        if (!preference.torchSlotsKnown() || !verifyTorchSlots(profile, utility, capacity, classifier, torchSlots)) {
+            torchSlots = scanBelt(lightMix, profile, utility, capacity, classifier);
+            metrics.utilityScans.increment();
+            preference.setTorchSlots(torchSlots, true);
+        } else if (!lightMix.isValid()) {
+            lightMix.reset(profile.tuning().maxRadius());
+            LightSourceRegistry lightSources = profile.lightSources();
+            for (long remaining = torchSlots; remaining != 0L; remaining &= remaining - 1) {
+                int slot = Long.numberOfTrailingZeros(remaining);
+                if (utility != null && slot < capacity) {
+                    lightMix.set(slot, classifier.classify(lightSources, utility, slot));
+                }
+            }
+        }
+        return torchSlots;
+    }
+
+    /**
+     * Applies pushed settings to an entity's preference and marks it dirty. Returns the preference now carrying them,
+     * a new one the caller must attach if the entity had none, or {@code null} if it had none and the settings enable
+     * no boost.
+     */
+    @Nullable
+    static BrightnessPreference pushSettings(
+        @Nullable BrightnessPreference preference,
+        @Nonnull PlayerLightState settings,
+        boolean announce,
+        boolean rescan
+    ) {
+        if (preference == null) {
+            if (!settings.hasBrightness()) {
+                return null;
+            }
+            preference = new BrightnessPreference();
+        }
+        preference.setSettings(settings);
+        if (rescan) {
+            preference.setTorchSlots(0L, false);
+        }
+        preference.markDirty(announce);
+        return preference;
+    }
+
+    /**
+     * Re-creates a reconnecting player's preference from their grace entry: the known torch slots skip the belt scan
+     * and the remembered light is shown without fading in again.
+     */
+    @Nonnull
+    static BrightnessPreference restorePreference(@Nonnull PlayerLightState settings, @Nonnull ReconnectGraceCache.Entry grace) {
+        BrightnessPreference preference = new BrightnessPreference();
+        preference.setSettings(settings);
+        preference.setTorchSlots(grace.torchSlots(), grace.torchSlotsKnown());
+        preference.setRestoredLight(grace.appliedLight());
+        return preference;
+    }
+
+    /**
+     * Returns the brightness level of a boost, scaled down by auto mode in lit surroundings and by crowding.
+     */
+    static int brightnessLevel(
+        @Nonnull PlayerLightState settings,
+        @Nonnull BrightnessPreference preference,
+        @Nonnull LightTuning tuning,
+        @Nonnull DensitySettings densitySettings
+    ) {
+        int brightnessLevel = LightMath.brightnessLevel(settings.brightness(), tuning);
+        if (settings.auto()) {
+            brightnessLevel = LightMath.ambientBrightnessLevel(brightnessLevel, preference.ambientLevel());
+        }
+        if (!preference.densityFull()) {
+            // Crowded cell: this player's light is one of many overlapping ones, so it only needs to be a hint.
+            brightnessLevel = Math.round(brightnessLevel * densitySettings.attenuation());
+        }
+        return brightnessLevel;
+    }
+
+    /**
+     * Returns the interned target light on top of the belt's combined baseline: the preset's shared light when one
+     * applies unscaled, the cached boosted light otherwise, capped to the governor's radius.
+     */
+    @Nonnull
+    static ColorLight targetLight(
+        @Nonnull LightProfile profile,
+        @Nonnull PlayerLightState settings,
+        @Nonnull BrightnessPreference preference,
+        int brightnessLevel,
+        int baseline,
+        int tintRgb,
+        @Nonnull BrightnessMetrics metrics
+    ) {
+        ColorLight target = null;
+        if (settings.hasPreset() && !settings.auto() && preference.densityFull()) {
+            // Unscaled preset lights are shared per light source; mixes of several sources, auto mode and crowding
+            // go through the cache.
+            LightPreset preset = profile.presets().get(settings.presetId());
+            target = preset == null || !preset.matches(settings) ? null : preset.light(baseline);
+        }
+        if (target != null) {
+            metrics.presetLights.increment();
+        } else {
+            target = profile.lightCache().boostedLight(brightnessLevel, baseline, tintRgb);
+        }
+        // The governor cap never shrinks the light below the belt's own combined radius.
+        int radiusCap = Math.max(preference.radiusCap(), LightMath.radius(baseline));
+        if (Byte.toUnsignedInt(target.radius) > radiusCap) {
+            target = profile.lightCache().packedLight(LightMath.withRadius(LightMath.pack(target), radiusCap));
+        }
+        return target;
+    }
+
+    /**
+     * Scans the whole belt, rebuilding the light mix along the way. Returns the torch slots.
+     */
+    private static <C> long scanBelt(
+        @Nonnull LightSourceMix lightMix,
+        @Nonnull LightProfile profile,
+        @Nullable C utility,
+        int capacity,
+        @Nonnull SlotClassifier<C> classifier
+    ) {
+        lightMix.reset(profile.tuning().maxRadius());
+        if (utility == null) {
+            return 0L;
+        }
+        LightSourceRegistry lightSources = profile.lightSources();
+        long torchSlots = 0L;
+        int slots = Math.min(capacity, MAX_TRACKED_SLOTS);
+        for (int slot = 0; slot < slots; slot++) {
+            torchSlots = setSlot(torchSlots, lightMix, slot, classifier.classify(lightSources, utility, slot));
+        }
+        return torchSlots;
+    }
+
+    private static long setSlot(long torchSlots, @Nonnull LightSourceMix lightMix, int slot, @Nonnull LightSource source) {
+        lightMix.set(slot, source);
+        return source.emitsLight() ? torchSlots | 1L << slot : torchSlots & ~(1L << slot);
+    }
+
+    /**
+     * Cheap desync check: the first slot the mask claims holds a torch must still hold one.
+     */
+    private static <C> boolean verifyTorchSlots(
+        @Nonnull LightProfile profile,
+        @Nullable C utility,
+        int capacity,
+        @Nonnull SlotClassifier<C> classifier,
+        long torchSlots
+    ) {
+        if (torchSlots == 0L) {
+            return true;
+        }
+        int slot = Long.numberOfTrailingZeros(torchSlots);
+        return utility != null && slot < capacity && classifier.classify(profile.lightSources(), utility, slot).emitsLight();
+    }
+}
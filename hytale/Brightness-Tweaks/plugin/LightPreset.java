@@ -0,0 +1,117 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A server-defined brightness, tint and warmth combination. One instance per preset is shared by every player using
+ * it; players only hold its {@link #id()}. The resolved light for every known light source is computed once, so
+ * applying a preset is a lookup instead of a light computation. Shared lights must never be mutated.
+ */
+final class LightPreset {
+
+    private final int id;
+    private final String name;
+    private final float brightness;
+    private final int tintRgb;
+    private final float warmth;
+    /**
+     * Sorted packed light-source baselines and their resolved lights, replaced together once item assets are known.
+     */
+    private volatile Lights lights = new Lights(new int[0], new ColorLight[0]);
+
+    LightPreset(int id, @Nonnull String name, @Nonnull PlayerLightState values) {
+        this.id = id;
+        this.name = name;
+        this.brightness = values.brightness();
+        this.tintRgb = values.tintRgb();
+        this.warmth = values.warmth();
+    }
+
+    /**
+     * Parses a config value of the form {@code <brightness> [#RRGGBB | warmth <0.0-1.0>]}, for example {@code 0.6 #A8C0FF}
+     * or {@code 0.5 warmth 1.0}.
+     */
+    @Nonnull
+    static PlayerLightState parse(@Nonnull String value) {
+        String[] parts = value.trim().split("\\s+");
+        float brightness = Float.parseFloat(parts[0]);
+        if (!(brightness >= 0.0f && brightness <= 1.0f)) {
+            throw new IllegalArgumentException("Expected a brightness from 0.0 to 1.0 but got '" + parts[0] + "'");
+        }
+        PlayerLightState values = PlayerLightState.EMPTY.withBrightness(brightness);
+        if (parts.length == 2 && parts[1].startsWith("#") && parts[1].length() == 7) {
+            return values.withTintRgb(Integer.parseInt(parts[1].substring(1), 16));
+        }
+        if (parts.length == 3 && parts[1].equalsIgnoreCase("warmth")) {
+            return values.withWarmth(LightMath.clamp(Float.parseFloat(parts[2]), 0.0f, 1.0f));
+        }
+        if (parts.length != 1) {
+            throw new IllegalArgumentException("Expected '<brightness> [#RRGGBB | warmth <0.0-1.0>]' but got '" + value + "'");
+        }
+        return values;
+    }
+
+    /**
+     * Resolves this preset's light on top of each baseline with the given tuning, replacing earlier results.
+     *
+     * @param baselines sorted, distinct packed light-source lights
+     */
+    void precompute(@Nonnull int[] baselines, @Nonnull LightTuning tuning) {
+        int level = LightMath.brightnessLevel(brightness, tuning);
+        int warmthLevel = LightMath.warmthLevel(warmth);
+        ColorLight[] resolved = new ColorLight[baselines.length];
+        for (int i = 0; i < baselines.length; i++) {
+            int tint = LightMath.resolveTintRgb(baselines[i], tintRgb, warmthLevel, tuning);
+            resolved[i] = LightMath.toColorLight(LightMath.toLight(level, baselines[i], tint, tuning));
+        }
+        lights = new Lights(baselines.clone(), resolved);
+    }
+
+    /**
+     * Returns the shared light for a light source, or {@code null} if that source was not known when the lights were
+     * computed.
+     */
+    @Nullable
+    ColorLight light(int baseline) {
+        Lights current = lights;
+        int index = Arrays.binarySearch(current.baselines, baseline);
+        return index < 0 ? null : current.lights[index];
+    }
+
+    int id() {
+        return id;
+    }
+
+    @Nonnull
+    String name() {
+        return name;
+    }
+
+    float brightness() {
+        return brightness;
+    }
+
+    int tintRgb() {
+        return tintRgb;
+    }
+
+    float warmth() {
+        return warmth;
+    }
+
+    /**
+     * Returns {@code true} if the state carries exactly this preset's brightness, tint and warmth.
+     */
+    boolean matches(@Nonnull PlayerLightState state) {
+        return Float.compare(state.brightness(), brightness) == 0
+            && state.tintRgb() == tintRgb
+            && Float.compare(state.warmth(), warmth) == 0;
+    }
+
+    private record Lights(@Nonnull int[] baselines, @Nonnull ColorLight[] lights) {
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The configured {@link LightPreset}s of one light profile. Ids are assigned in name order starting at 1, so they are
+ * only meaningful within this profile; {@link #carryOver} maps them across a reload.
+ */
+final class LightPresets {
+
+    static final int MAX_PRESETS = 255;
+
+    private final LightPreset[] byId;
+    private final Map<String, LightPreset> byName = new TreeMap<>();
+    private final LightTuning tuning;
+
+    LightPresets(@Nonnull Map<String, PlayerLightState> configured, @Nonnull LightTuning tuning) {
+        this.tuning = tuning;
+        List<LightPreset> presets = new ArrayList<>();
+        presets.add(null);
+        for (Map.Entry<String, PlayerLightState> entry : new TreeMap<>(configured).entrySet()) {
+            if (presets.size() > MAX_PRESETS) {
+                break;
+            }
+            LightPreset preset = new LightPreset(presets.size(), entry.getKey(), entry.getValue());
+            presets.add(preset);
+            byName.put(preset.name(), preset);
+        }
+        this.byId = presets.toArray(new LightPreset[0]);
+    }
+
+    /**
+     * Resolves every preset's light for each known light source.
+     *
+     * @param baselines sorted, distinct packed light-source lights
+     */
+    void precompute(@Nonnull int[] baselines) {
+        for (LightPreset preset : byName.values()) {
+            preset.precompute(baselines, tuning);
+        }
+    }
+
+    @Nullable
+    LightPreset get(int id) {
+        return id > 0 && id < byId.length ? byId[id] : null;
+    }
+
+    @Nullable
+    LightPreset byName(@Nonnull String name) {
+        return byName.get(name);
+    }
+
+    @Nonnull
+    List<String> names() {
+        return List.copyOf(byName.keySet());
+    }
+
+    int size() {
+        return byName.size();
+    }
+
+    /**
+     * Links settings loaded without a preset id to the preset with exactly the same values, if any.
+     */
+    @Nonnull
+    PlayerLightState link(@Nonnull PlayerLightState state) {
+        if (state.hasPreset() || !state.hasBrightness()) {
+            return state;
+        }
+        for (LightPreset preset : byName.values()) {
+            if (preset.matches(state)) {
+                return state.withPreset(preset);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Moves a state linked to a preset of {@code previous} onto this profile's preset of the same name, picking up any
+     * changed values. A preset that was removed leaves the player with its last values.
+     */
+    @Nonnull
+    PlayerLightState carryOver(@Nonnull LightPresets previous, @Nonnull PlayerLightState state) {
+        LightPreset old = previous.get(state.presetId());
+        if (old == null) {
+            return state;
+        }
+        LightPreset current = byName(old.name());
+        return current == null ? state.withoutPreset() : state.withPreset(current);
+    }
+}
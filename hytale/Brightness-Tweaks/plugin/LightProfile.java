@@ -0,0 +1,36 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Everything derived from the reloadable part of the config: the light tuning, the light-source classifications, the
+ * light presets and a light cache computed with that tuning. Built completely before it is published, so a reload is a
+ * single reference swap.
+ */
+record LightProfile(
+    @Nonnull LightTuning tuning,
+    @Nonnull LightSourceRegistry lightSources,
+    @Nonnull ColorLightCache lightCache,
+    @Nonnull LightPresets presets
+) {
+
+    @Nonnull
+    static LightProfile of(@Nonnull BrightnessConfig config) {
+        return new LightProfile(
+            config.lightTuning(),
+            new LightSourceRegistry(config.lightSources(), config.itemAssetLights()),
+            new ColorLightCache(config.lightCacheSize(), config.lightTuning()),
+            new LightPresets(config.presets(), config.lightTuning())
+        );
+    }
+
+    /**
+     * Classifies every loaded item asset, then resolves each preset's light for all light sources found. Returns the
+     * number of light-emitting items.
+     */
+    int preload() {
+        int itemLights = lightSources.preloadItemAssets();
+        presets.precompute(lightSources.baselines());
+        return itemLights;
+    }
+}
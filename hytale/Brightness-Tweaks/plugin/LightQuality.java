@@ -0,0 +1,34 @@
+package org.example.plugin;
+
+/**
+ * Light quality levels chosen by the {@link LoadGovernor}. Lower levels cap the boost radius and slow down flicker
+ * updates so a struggling world spends less time on lighting.
+ */
+enum LightQuality {
+    FULL(1),
+    REDUCED(2),
+    MINIMAL(4);
+
+    private static final LightQuality[] VALUES = values();
+
+    private final int updateDivisor;
+
+    LightQuality(int updateDivisor) {
+        this.updateDivisor = updateDivisor;
+    }
+
+    /**
+     * Factor by which flicker update rate and per-tick budget are divided at this level.
+     */
+    int updateDivisor() {
+        return updateDivisor;
+    }
+
+    LightQuality lower() {
+        return this == MINIMAL ? MINIMAL : VALUES[ordinal() + 1];
+    }
+
+    LightQuality higher() {
+        return this == FULL ? FULL : VALUES[ordinal() - 1];
+    }
+}
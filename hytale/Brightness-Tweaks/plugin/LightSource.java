@@ -0,0 +1,84 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Resolved light classification for an item id. Items that do not emit light resolve to {@link #NONE}.
+ */
+final class LightSource {
+
+    static final LightSource NONE = new LightSource(0, 0, 0, 0);
+
+    final int radius;
+    final int red;
+    final int green;
+    final int blue;
+    final int packed;
+    private final ColorLight light;
+
+    LightSource(int radius, int red, int green, int blue) {
+        this.radius = clampByte(radius);
+        this.red = clampByte(red);
+        this.green = clampByte(green);
+        this.blue = clampByte(blue);
+        this.packed = LightMath.pack(this.radius, this.red, this.green, this.blue);
+        this.light = LightMath.toColorLight(packed);
+    }
+
+    static LightSource of(@Nonnull ColorLight light) {
+        return new LightSource(
+            Byte.toUnsignedInt(light.radius),
+            Byte.toUnsignedInt(light.red),
+            Byte.toUnsignedInt(light.green),
+            Byte.toUnsignedInt(light.blue)
+        );
+    }
+
+    /**
+     * Parses a config value of the form {@code <radius> #RRGGBB}, for example {@code 14 #FFC890}, with a radius of at
+     * least 1. The value {@code none} marks an item as not being a light source.
+     */
+    static LightSource parse(@Nonnull String value) {
+        if (value.trim().equalsIgnoreCase("none")) {
+            return NONE;
+        }
+
+        String[] parts = value.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected '<radius> #RRGGBB' but got '" + value + "'");
+        }
+
+        int radius = Integer.parseInt(parts[0]);
+        if (radius < 1) {
+            // A zero radius would still count as a light source and hold the boost without lighting anything.
+            throw new IllegalArgumentException(
+                "Expected a radius of at least 1 but got " + radius + "; use 'none' to exclude an item"
+            );
+        }
+        String hex = parts[1].startsWith("#") ? parts[1].substring(1) : parts[1];
+        if (hex.length() != 6) {
+            throw new IllegalArgumentException("Expected a #RRGGBB color but got '" + parts[1] + "'");
+        }
+        int rgb = Integer.parseInt(hex, 16);
+        return new LightSource(radius, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
+    boolean emitsLight() {
+        return this != NONE;
+    }
+
+    /**
+     * Returns the shared light for this source. Callers must not mutate it.
+     */
+    @Nullable
+    ColorLight light() {
+        return emitsLight() ? light : null;
+    }
+
+    private static int clampByte(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Combined light of every light source in a player's utility belt, kept as running sums that are adjusted per changed
+ * slot. Each source adds its squared radius (light output, so two torches reach about 1.4 times as far as one) and its
+ * radius-weighted color; the combined light is the square root of the summed output, capped at the tuning's maximum
+ * radius, with the weighted average color. A single source combines to itself unless its radius exceeds the cap.
+ * Reading the combined light is a field load, and a slot change costs the same no matter how many light sources are
+ * configured. Only ever touched on the world thread.
+ */
+final class LightSourceMix {
+
+    private int[] slotLights = new int[0];
+    private long weight;
+    private long red;
+    private long green;
+    private long blue;
+    private long output;
+    private int maxRadius = LightMath.MAX_LIGHT_RADIUS;
+    private int combined = LightMath.NONE;
+    private boolean valid;
+
+    /**
+     * Returns {@code false} until the mix has been built from the belt. A preference restored from the reconnect grace
+     * cache starts with an unbuilt mix, since only its torch slots were remembered.
+     */
+    boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Empties the mix and marks it valid; the caller then {@link #set}s every light-emitting slot. The combined radius is
+     * capped at {@code maxRadius} until the next reset.
+     */
+    void reset(int maxRadius) {
+        this.maxRadius = maxRadius;
+        Arrays.fill(slotLights, LightMath.NONE);
+        weight = 0L;
+        red = 0L;
+        green = 0L;
+        blue = 0L;
+        output = 0L;
+        combined = LightMath.NONE;
+        valid = true;
+    }
+
+    /**
+     * Replaces the contribution of one slot. Returns {@code true} if the combined light changed.
+     */
+    boolean set(int slot, @Nonnull LightSource source) {
+        if (slot >= slotLights.length) {
+            if (!source.emitsLight()) {
+                return false;
+            }
+            int length = Math.max(slot + 1, slotLights.length * 2);
+            slotLights = Arrays.copyOf(slotLights, length);
+        }
+        int previous = slotLights[slot];
+        if (previous == source.packed) {
+            return false;
+        }
+        slotLights[slot] = source.packed;
+        add(previous, -1);
+        add(source.packed, 1);
+
+        int updated = combine();
+        boolean changed = updated != combined;
+        combined = updated;
+        return changed;
+    }
+
+    /**
+     * Returns the combined light as a packed baseline, {@link LightMath#NONE} if no slot emits light.
+     */
+    int combined() {
+        return combined;
+    }
+
+    @Nonnull
+    LightSourceMix copy() {
+        LightSourceMix copy = new LightSourceMix();
+        copy.slotLights = slotLights.clone();
+        copy.weight = weight;
+        copy.red = red;
+        copy.green = green;
+        copy.blue = blue;
+        copy.output = output;
+        copy.maxRadius = maxRadius;
+        copy.combined = combined;
+        copy.valid = valid;
+        return copy;
+    }
+
+    private void add(int light, int sign) {
+        long radius = LightMath.radius(light);
+        if (radius == 0L) {
+            return;
+        }
+        weight += sign * radius;
+        red += sign * radius * ((light >>> 16) & 0xFF);
+        green += sign * radius * ((light >>> 8) & 0xFF);
+        blue += sign * radius * (light & 0xFF);
+        output += sign * radius * radius;
+    }
+
+    private int combine() {
+        if (weight == 0L) {
+            return LightMath.NONE;
+        }
+        int radius = (int) Math.min(maxRadius, Math.round(Math.sqrt(output)));
+        return LightMath.pack(
+            radius,
+            (int) ((red + weight / 2) / weight),
+            (int) ((green + weight / 2) / weight),
+            (int) ((blue + weight / 2) / weight)
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies item ids as light sources. Each id is resolved once (config entries first, then the item asset's own
+ * light) and cached, so later checks are a single lock-free hash lookup.
+ */
+final class LightSourceRegistry {
+
+    private final Map<String, LightSource> configured;
+    private final boolean useItemAssetLights;
+    private final ConcurrentHashMap<String, LightSource> classifications = new ConcurrentHashMap<>();
+
+    LightSourceRegistry(@Nonnull Map<String, LightSource> configured, boolean useItemAssetLights) {
+        this.configured = Map.copyOf(configured);
+        this.useItemAssetLights = useItemAssetLights;
+        classifications.putAll(this.configured);
+    }
+
+    /**
+     * Resolves every item in the loaded asset set up front, so the hot path never has to fall back to the asset map.
+     * Returns the number of light-emitting items found.
+     */
+    int preloadItemAssets() {
+        int lightSources = 0;
+        for (String itemId : Item.getAssetMap().getAssetMap().keySet()) {
+            if (classify(itemId).emitsLight()) {
+                lightSources++;
+            }
+        }
+        return lightSources;
+    }
+
+    @Nonnull
+    LightSource classify(@Nullable ItemStack stack) {
+        if (stack == null || stack.isEmpty()) {
+            return LightSource.NONE;
+        }
+        String itemId = stack.getItemId();
+        return itemId == null ? LightSource.NONE : classify(itemId);
+    }
+
+    @Nonnull
+    LightSource classify(@Nonnull String itemId) {
+        LightSource cached = classifications.get(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        return classifications.computeIfAbsent(itemId, this::resolve);
+    }
+
+    int size() {
+        return classifications.size();
+    }
+
+    /**
+     * Returns the distinct lights of all sources classified so far, packed and sorted.
+     */
+    @Nonnull
+    int[] baselines() {
+        return classifications.values().stream()
+            .filter(LightSource::emitsLight)
+            .mapToInt(source -> source.packed)
+            .distinct()
+            .sorted()
+            .toArray();
+    }
+
+    private LightSource resolve(@Nonnull String itemId) {
+        LightSource configuredSource = configured.get(itemId);
+        if (configuredSource != null) {
+            return configuredSource;
+        }
+        if (!useItemAssetLights) {
+            return LightSource.NONE;
+        }
+
+        Item item = Item.getAssetMap().getAsset(itemId);
+        ColorLight light = item == null ? null : item.getLight();
+        if (light == null || light.radius == 0) {
+            return LightSource.NONE;
+        }
+        return LightSource.of(light);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.plugin;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * JDK Flight Recorder events tracing one light update end to end: the inventory change, the sync request, the batched
+ * sync on the world thread and the light write in {@link BrightnessLightSystem}. All events are disabled by default;
+ * a disabled event is never committed and its fields are only filled after {@code shouldCommit()}, so the JIT reduces
+ * the tracing to a flag check. Enable them with {@code brightness-trace.jfc} (see the README) and correlate the events
+ * of one update by player.
+ */
+final class LightTraceEvents {
+
+    static final String CATEGORY = "Brightness Tweaks";
+
+    static final String CAUSE_INVENTORY = "inventory";
+    static final String CAUSE_COMMAND = "command";
+    static final String CAUSE_JOIN = "join";
+    static final String CAUSE_RESTORE = "restore";
+    static final String CAUSE_BATCH = "batch";
+
+    static final String OUTCOME_APPLIED = "applied";
+    static final String OUTCOME_NO_OP = "no-op";
+    static final String OUTCOME_NO_TORCH = "no-torch";
+    static final String OUTCOME_DISABLED = "disabled";
+    static final String OUTCOME_MISSING_REF = "missing-ref";
+    static final String OUTCOME_STALE_WORLD = "stale-world";
+    static final String OUTCOME_DEFERRED = "deferred";
+    static final String OUTCOME_IGNORED = "ignored";
+
+    private LightTraceEvents() {
+    }
+
+    @Nonnull
+    private static String player(@Nonnull UUID playerUuid) {
+        return playerUuid.toString();
+    }
+
+    @Name("org.example.brightness.InventoryChange")
+    @Label("Brightness Inventory Change")
+    @Description("An inventory change checked for light sources; outcome is applied (light marked dirty), no-op, "
+        + "deferred (handed to the world batch), stale-world or ignored.")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class InventoryChange extends Event {
+
+        @Label("Player")
+        String player;
+        @Label("World")
+        String world;
+        @Label("Outcome")
+        String outcome;
+
+        void commit(@Nonnull UUID playerUuid, @Nonnull String worldName, @Nonnull String outcome) {
+            if (shouldCommit()) {
+                this.player = player(playerUuid);
+                this.world = worldName;
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+
+    @Name("org.example.brightness.SyncRequested")
+    @Label("Brightness Sync Requested")
+    @Description("A player's settings were queued for the next batched sync of their world.")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SyncRequested extends Event {
+
+        @Label("Player")
+        String player;
+        @Label("World")
+        String world;
+        @Label("Cause")
+        String cause;
+
+        void commit(@Nonnull UUID playerUuid, @Nonnull String worldName, @Nonnull String cause) {
+            if (shouldCommit()) {
+                this.player = player(playerUuid);
+                this.world = worldName;
+                this.cause = cause;
+                commit();
+            }
+        }
+    }
+
+    @Name("org.example.brightness.Sync")
+    @Label("Brightness Sync")
+    @Description("A batched sync pushing a player's settings onto their entity on the world thread; outcome is "
+        + "applied, missing-ref (player not in the world) or stale-world.")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Sync extends Event {
+
+        @Label("Player")
+        String player;
+        @Label("World")
+        String world;
+        @Label("Cause")
+        String cause;
+        @Label("Outcome")
+        String outcome;
+
+        void commit(@Nonnull UUID playerUuid, @Nonnull String worldName, @Nonnull String cause, @Nonnull String outcome) {
+            if (shouldCommit()) {
+                this.player = player(playerUuid);
+                this.world = worldName;
+                this.cause = cause;
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+
+    @Name("org.example.brightness.LightApply")
+    @Label("Brightness Light Apply")
+    @Description("A dirty preference applied by the light system; outcome is applied (light written or fade started), "
+        + "no-op, no-torch or disabled.")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class LightApply extends Event {
+
+        @Label("Player")
+        String player;
+        @Label("World")
+        String world;
+        @Label("Outcome")
+        String outcome;
+        @Label("Light")
+        @Description("Light after the apply, packed as radius, red, green and blue bytes")
+        int light;
+
+        void commit(@Nonnull UUID playerUuid, @Nonnull String worldName, @Nonnull String outcome, int light) {
+            if (shouldCommit()) {
+                this.player = player(playerUuid);
+                this.world = worldName;
+                this.outcome = outcome;
+                this.light = light;
+                commit();
+            }
+        }
+    }
+}
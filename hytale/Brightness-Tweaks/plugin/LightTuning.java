@@ -0,0 +1,42 @@
+package org.example.plugin;
+
+/**
+ * Tunable ranges of the boost curve. Boosted lights blend from the torch (or {@code minRadius} without one) toward
+ * {@code maxRadius} and {@code maxIntensity} as the brightness goes from {@code minBrightness} to
+ * {@code maxBrightness}; warmth blends the tint toward {@code warmRgb}. Values are validated on construction, so a
+ * snapshot is always usable as is.
+ *
+ * @param minBrightness brightness value mapped to the weakest boost
+ * @param maxBrightness brightness value mapped to the strongest boost
+ * @param minRadius radius of a boost without a torch baseline, and the lower bound of boosted radii
+ * @param maxRadius radius of a full boost
+ * @param maxIntensity brightest channel value of a full boost
+ * @param warmRgb tint that full warmth blends toward, as 0xRRGGBB
+ */
+record LightTuning(float minBrightness, float maxBrightness, int minRadius, int maxRadius, int maxIntensity, int warmRgb) {
+
+    static final LightTuning DEFAULT = new LightTuning(0.01f, 1.0f, 6, 32, 255, 0xFFDCAA);
+
+    LightTuning {
+        if (!(minBrightness > 0.0f && minBrightness < maxBrightness)) {
+            throw new IllegalArgumentException("min-brightness must be above 0 and below max-brightness");
+        }
+        if (minRadius < LightMath.MIN_LIGHT_RADIUS || minRadius > maxRadius || maxRadius > LightMath.MAX_LIGHT_RADIUS) {
+            throw new IllegalArgumentException(
+                "Light radii must satisfy " + LightMath.MIN_LIGHT_RADIUS + " <= min-light-radius <= max-light-radius <= "
+                    + LightMath.MAX_LIGHT_RADIUS
+            );
+        }
+        if (maxIntensity < 1 || maxIntensity > LightMath.MAX_LIGHT_INTENSITY) {
+            throw new IllegalArgumentException("max-light-intensity must be between 1 and " + LightMath.MAX_LIGHT_INTENSITY);
+        }
+        warmRgb &= 0xFFFFFF;
+    }
+
+    /**
+     * Returns the intensity of a minimum boost without a torch baseline.
+     */
+    int minIntensity() {
+        return Math.max(1, Math.round(maxIntensity * minBrightness / maxBrightness));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-world light quality state. {@link LoadGovernorSystem} feeds it the wall-clock time between world ticks and the
+ * sync backlog; it steps quality down one level at a time under sustained load and back up only after the world has
+ * stayed calm for a while, so it does not oscillate around the threshold. Written on the world thread; quality and the
+ * tick average are volatile so stats can read them from anywhere.
+ */
+public final class LoadGovernor implements Resource<EntityStore> {
+
+    /**
+     * Weight of the newest tick interval in the moving average.
+     */
+    private static final float SMOOTHING = 0.05f;
+    /**
+     * Average tick interval, relative to the target, above which the world counts as overloaded.
+     */
+    private static final float OVERLOAD_RATIO = 1.25f;
+    /**
+     * Average tick interval, relative to the target, below which the world counts as calm.
+     */
+    private static final float CALM_RATIO = 1.05f;
+    /**
+     * Pending syncs in one world that count as overload on their own.
+     */
+    static final int BACKLOG_LIMIT = 256;
+
+    private static final long MIN_DWELL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long RECOVERY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private volatile LightQuality quality = LightQuality.FULL;
+    private volatile float averageTickMillis;
+    private long lastTickNanos;
+    private long qualitySinceNanos;
+    private long calmSinceNanos;
+    private boolean reported;
+
+    public LoadGovernor() {
+    }
+
+    /**
+     * Records one world tick. Returns {@code true} if the quality level changed.
+     */
+    boolean sample(long nowNanos, int syncBacklog, int targetTickMillis) {
+        if (lastTickNanos != 0L) {
+            float interval = (nowNanos - lastTickNanos) / 1_000_000.0f;
+            float previous = averageTickMillis;
+            averageTickMillis = previous == 0.0f ? interval : previous + (interval - previous) * SMOOTHING;
+        }
+        lastTickNanos = nowNanos;
+
+        float average = averageTickMillis;
+        boolean overloaded = average > targetTickMillis * OVERLOAD_RATIO || syncBacklog > BACKLOG_LIMIT;
+        boolean calm = average < targetTickMillis * CALM_RATIO && syncBacklog < BACKLOG_LIMIT / 4;
+
+        if (overloaded) {
+            calmSinceNanos = 0L;
+            if (quality != LightQuality.MINIMAL && nowNanos - qualitySinceNanos >= MIN_DWELL_NANOS) {
+                quality = quality.lower();
+                qualitySinceNanos = nowNanos;
+                return true;
+            }
+        } else if (calm) {
+            if (calmSinceNanos == 0L) {
+                calmSinceNanos = nowNanos;
+            }
+            if (quality != LightQuality.FULL && nowNanos - calmSinceNanos >= RECOVERY_NANOS) {
+                quality = quality.higher();
+                qualitySinceNanos = nowNanos;
+                calmSinceNanos = nowNanos;
+                return true;
+            }
+        } else {
+            calmSinceNanos = 0L;
+        }
+        return false;
+    }
+
+    @Nonnull
+    LightQuality quality() {
+        return quality;
+    }
+
+    float averageTickMillis() {
+        return averageTickMillis;
+    }
+
+    /**
+     * Returns {@code true} exactly once, so the governor is registered with the stats a single time.
+     */
+    boolean markReported() {
+        if (reported) {
+            return false;
+        }
+        reported = true;
+        return true;
+    }
+
+    /**
+     * Load history is specific to one world, so a copy starts fresh.
+     */
+    @Nonnull
+    @Override
+    public LoadGovernor clone() {
+        return new LoadGovernor();
+    }
+}
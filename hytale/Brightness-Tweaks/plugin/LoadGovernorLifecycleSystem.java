@@ -0,0 +1,36 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.StoreSystem;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Drops a world's {@link LoadGovernor} from the stats when the world's store shuts down, so unloaded worlds are not
+ * kept reachable and no longer show up in {@code /brightness stats}. Registration happens on the governor's first
+ * tick in {@link LoadGovernorSystem}.
+ */
+final class LoadGovernorLifecycleSystem extends StoreSystem<EntityStore> {
+
+    private final ResourceType<EntityStore, LoadGovernor> governorType;
+    private final BrightnessMetrics metrics;
+
+    LoadGovernorLifecycleSystem(@Nonnull ResourceType<EntityStore, LoadGovernor> governorType, @Nonnull BrightnessMetrics metrics) {
+        this.governorType = governorType;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onSystemAddedToStore(@Nonnull Store<EntityStore> store) {
+    }
+
+    @Override
+    public void onSystemRemovedFromStore(@Nonnull Store<EntityStore> store) {
+        LoadGovernor governor = store.getResource(governorType);
+        if (governor != null) {
+            metrics.untrackGovernor(governor);
+        }
+    }
+}
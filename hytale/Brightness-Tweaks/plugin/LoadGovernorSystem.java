@@ -0,0 +1,58 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Samples world load once per tick and updates the world's {@link LoadGovernor}. Quality changes are logged;
+ * {@link BrightnessLightSystem} picks up the new radius cap on the next tick.
+ */
+final class LoadGovernorSystem extends TickingSystem<EntityStore> {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final ResourceType<EntityStore, LoadGovernor> governorType;
+    private final BrightnessService brightnessService;
+    private final GovernorSettings settings;
+
+    LoadGovernorSystem(
+        @Nonnull ResourceType<EntityStore, LoadGovernor> governorType,
+        @Nonnull BrightnessService brightnessService,
+        @Nonnull GovernorSettings settings
+    ) {
+        this.governorType = governorType;
+        this.brightnessService = brightnessService;
+        this.settings = settings;
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        LoadGovernor governor = store.getResource(governorType);
+        EntityStore entityStore = store.getExternalData();
+        World world = entityStore == null ? null : entityStore.getWorld();
+        if (governor == null || world == null) {
+            return;
+        }
+
+        if (governor.markReported()) {
+            brightnessService.metrics().trackGovernor(world.getName(), governor);
+        }
+
+        int backlog = brightnessService.pendingSyncCount(world);
+        if (governor.sample(System.nanoTime(), backlog, settings.targetTickMillis())) {
+            LightQuality quality = governor.quality();
+            brightnessService.metrics().governorTransitions.increment();
+            LOGGER.atInfo().log(
+                "Light quality in world " + world.getName() + " is now " + quality + " (radius cap "
+                    + settings.radiusCap(quality) + ", avg tick " + Math.round(governor.averageTickMillis()) + "ms, "
+                    + backlog + " pending syncs)"
+            );
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The latest command-triggered sync waiting for a player's next batched sync. Each player has at most one; a newer
+ * command replaces it, so a burst of commands inside one tick ends in a single push and a single reply.
+ *
+ * @param player the player who ran the command
+ * @param announce whether the light system should report the resulting light
+ * @param confirmation reply sent once the settings are pushed, {@code null} if the announcement covers it
+ */
+record PendingCommand(@Nonnull PlayerRef player, boolean announce, @Nullable Message confirmation) {
+}
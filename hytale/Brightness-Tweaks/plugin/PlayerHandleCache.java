@@ -0,0 +1,114 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-world cache of resolved player entity handles. A cached handle is reused while its {@link Ref} is still valid, so
+ * a sync costs one validity check instead of two UUID lookups and the {@code Player}/{@code PlayerRef} fetches. A
+ * world's map is dropped with its last handle, so unloaded worlds are not kept reachable.
+ */
+final class PlayerHandleCache {
+
+    private final ConcurrentMap<World, ConcurrentMap<UUID, PlayerHandle>> worlds = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    /**
+     * Returns the player's handle in the given world, resolving and caching it if needed. Must be called on the world
+     * thread.
+     */
+    @Nullable
+    PlayerHandle resolve(@Nonnull World world, @Nonnull EntityStore entityStore, @Nonnull UUID playerUuid) {
+        ConcurrentMap<UUID, PlayerHandle> handles = worlds.get(world);
+        PlayerHandle cached = handles == null ? null : handles.get(playerUuid);
+        if (cached != null) {
+            if (cached.ref().isValid()) {
+                hits.increment();
+                return cached;
+            }
+            stale.increment();
+            invalidate(world, playerUuid);
+        }
+
+        misses.increment();
+        Store<EntityStore> store = entityStore.getStore();
+        if (store == null) {
+            return null;
+        }
+
+        Ref<EntityStore> ref = world.getEntityRef(playerUuid);
+        if (ref == null) {
+            ref = entityStore.getRefFromUUID(playerUuid);
+        }
+        if (ref == null) {
+            return null;
+        }
+
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null) {
+            return null;
+        }
+
+        PlayerHandle handle = new PlayerHandle(ref, player, store.getComponent(ref, PlayerRef.getComponentType()));
+        worlds.compute(world, (key, current) -> {
+            ConcurrentMap<UUID, PlayerHandle> updated = current == null ? new ConcurrentHashMap<>() : current;
+            updated.put(playerUuid, handle);
+            return updated;
+        });
+        return handle;
+    }
+
+    /**
+     * Drops the player's handle in every world (used on disconnect).
+     */
+    void invalidate(@Nonnull UUID playerUuid) {
+        for (World world : worlds.keySet()) {
+            invalidate(world, playerUuid);
+        }
+    }
+
+    /**
+     * Drops the player's handle in one world (used when the player left that world for another).
+     */
+    void invalidate(@Nonnull World world, @Nonnull UUID playerUuid) {
+        worlds.computeIfPresent(world, (key, handles) -> {
+            handles.remove(playerUuid);
+            return handles.isEmpty() ? null : handles;
+        });
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of cached handles found invalid (entity removed) and re-resolved.
+     */
+    long staleCount() {
+        return stale.sum();
+    }
+
+    /**
+     * Resolved player entity: its reference plus the components every sync needs.
+     */
+    record PlayerHandle(@Nonnull Ref<EntityStore> ref, @Nonnull Player player, @Nullable PlayerRef playerRef) {
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Immutable snapshot of a player's brightness settings. Updated by swapping whole snapshots, so readers never see a
+ * half-applied change (for example tint set while warmth is still present). Runtime light state lives on the player
+ * entity in {@link BrightnessPreference}.
+ *
+ * @param brightness requested boost, or {@link Float#NaN} when the boost is disabled
+ * @param tintRgb custom tint as 0xRRGGBB, or {@link #NO_TINT}
+ * @param warmth warmth from 0.0 to 1.0, or {@link Float#NaN} when unset
+ * @param flicker flicker amount from 0.0 to 1.0, {@code 0} when off
+ * @param auto whether the boost follows the ambient light around the player
+ * @param presetId id of the {@link LightPreset} that set brightness, tint and warmth, or {@link #NO_PRESET}
+ */
+record PlayerLightState(float brightness, int tintRgb, float warmth, float flicker, boolean auto, int presetId) {
+
+    static final int NO_TINT = -1;
+    static final int NO_PRESET = 0;
+
+    static final PlayerLightState EMPTY = new PlayerLightState(Float.NaN, NO_TINT, Float.NaN, 0.0f, false, NO_PRESET);
+
+    boolean hasBrightness() {
+        return !Float.isNaN(brightness);
+    }
+
+    boolean hasTint() {
+        return tintRgb != NO_TINT;
+    }
+
+    boolean hasWarmth() {
+        return !Float.isNaN(warmth);
+    }
+
+    boolean hasFlicker() {
+        return flicker > 0.0f;
+    }
+
+    boolean hasPreset() {
+        return presetId != NO_PRESET;
+    }
+
+    /**
+     * Returns {@code true} if this snapshot carries no settings at all.
+     */
+    boolean isEmpty() {
+        return !hasBrightness() && !hasTint() && !hasWarmth() && !hasFlicker() && !auto;
+    }
+
+    /**
+     * Sets the brightness. Like tint and warmth, this leaves any preset, since the light no longer matches it.
+     */
+    PlayerLightState withBrightness(float value) {
+        return new PlayerLightState(value, tintRgb, warmth, flicker, auto, NO_PRESET);
+    }
+
+    /**
+     * Sets the tint and clears warmth in the same snapshot, since only one of them applies at a time.
+     */
+    PlayerLightState withTintRgb(int rgb) {
+        return new PlayerLightState(brightness, rgb, rgb == NO_TINT ? warmth : Float.NaN, flicker, auto, NO_PRESET);
+    }
+
+    /**
+     * Sets the warmth and clears the tint in the same snapshot, since only one of them applies at a time.
+     */
+    PlayerLightState withWarmth(float value) {
+        return new PlayerLightState(brightness, Float.isNaN(value) ? tintRgb : NO_TINT, value, flicker, auto, NO_PRESET);
+    }
+
+    PlayerLightState withFlicker(float value) {
+        return new PlayerLightState(brightness, tintRgb, warmth, value, auto, presetId);
+    }
+
+    PlayerLightState withAuto(boolean value) {
+        return new PlayerLightState(brightness, tintRgb, warmth, flicker, value, presetId);
+    }
+
+    /**
+     * Takes brightness, tint and warmth from a preset and remembers its id; flicker and auto mode are kept.
+     */
+    PlayerLightState withPreset(@Nonnull LightPreset preset) {
+        return new PlayerLightState(preset.brightness(), preset.tintRgb(), preset.warmth(), flicker, auto, preset.id());
+    }
+
+    /**
+     * Keeps the current values but drops the preset link.
+     */
+    PlayerLightState withoutPreset() {
+        return new PlayerLightState(brightness, tintRgb, warmth, flicker, auto, NO_PRESET);
+    }
+}
@@ -0,0 +1,386 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists player settings in a fixed-width binary file: an on-disk open-addressing hash table keyed by UUID. Opening
+ * only reads the header, lookups probe a few records, and writes are buffered and flushed in batches on the background
+ * executor, so a crash loses at most one flush interval. All file access happens on the background executor. A file
+ * with an unreadable header is moved aside to {@code preferences.bin.bad-<millis>} and replaced by an empty table.
+ */
+final class PreferenceStore {
+
+    static final String FILE_NAME = "preferences.bin";
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAGIC = 0x42545031;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int FLAG_OCCUPIED = 1;
+    private static final int FLAG_DELETED = 2;
+    /**
+     * The flicker amount (bits 8-15) and auto mode (bit 16) ride in the flags word so version 1 files stay readable.
+     */
+    private static final int FLICKER_SHIFT = 8;
+    private static final int FLAG_AUTO = 1 << 16;
+
+    private final Path file;
+    private final ScheduledExecutorService executor;
+    /**
+     * Latest unflushed settings per player; {@link PlayerLightState#EMPTY} marks a deletion.
+     */
+    private final ConcurrentMap<UUID, PlayerLightState> pending = new ConcurrentHashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+    private FileChannel channel;
+    private int capacity;
+    private int used;
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * Creates the store. The executor must be single-threaded: it serializes every file access.
+     */
+    PreferenceStore(@Nonnull Path dataDirectory, @Nonnull ScheduledExecutorService executor) {
+        this.file = dataDirectory.resolve(FILE_NAME);
+        this.executor = executor;
+    }
+
+    /**
+     * Opens the file (reading only its header) and starts the periodic flush.
+     */
+    void start(long flushIntervalSeconds) {
+        executor.execute(() -> {
+            try {
+                open();
+            } catch (IOException e) {
+                closeChannel();
+                LOGGER.atSevere().withCause(e).log("Unable to open preference store " + file + ", settings will not persist");
+            }
+        });
+        flushTask = executor.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Loads a player's saved settings. Unflushed writes win over the file.
+     */
+    @Nonnull
+    CompletableFuture<PlayerLightState> load(@Nonnull UUID playerUuid) {
+        PlayerLightState buffered = pending.get(playerUuid);
+        if (buffered != null) {
+            return CompletableFuture.completedFuture(buffered);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            PlayerLightState raced = pending.get(playerUuid);
+            if (raced != null) {
+                return raced;
+            }
+            try {
+                return read(playerUuid);
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Unable to read saved brightness settings for " + playerUuid);
+                return PlayerLightState.EMPTY;
+            }
+        }, executor);
+    }
+
+    /**
+     * Buffers the player's latest settings for the next flush. Safe to call from any thread.
+     */
+    void save(@Nonnull UUID playerUuid, @Nonnull PlayerLightState state) {
+        pending.put(playerUuid, state);
+    }
+
+    /**
+     * Stops the periodic flush, writes everything still buffered and closes the file. Blocks until done.
+     */
+    void close() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        try {
+            executor.submit(() -> {
+                flush();
+                closeChannel();
+            }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOGGER.atWarning().withCause(e).log("Unable to flush brightness settings on shutdown");
+        }
+    }
+
+    private void flush() {
+        if (channel == null || pending.isEmpty()) {
+            return;
+        }
+        try {
+            int written = 0;
+            for (Map.Entry<UUID, PlayerLightState> entry : pending.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+                // Only drop the buffered value if no newer one arrived while writing.
+                pending.remove(entry.getKey(), entry.getValue());
+                written++;
+            }
+            writeHeader();
+            channel.force(false);
+            LOGGER.atFine().log("Flushed " + written + " brightness preference records");
+        } catch (IOException | RuntimeException e) {
+            // Never let an exception escape: it would cancel the periodic flush for the rest of the process.
+            LOGGER.atWarning().withCause(e).log("Unable to flush brightness settings, will retry");
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_BYTES) {
+            initialize(channel, INITIAL_CAPACITY);
+            capacity = INITIAL_CAPACITY;
+            used = 0;
+            return;
+        }
+
+        String problem = readHeader();
+        if (problem == null) {
+            return;
+        }
+
+        // Writing into a table we cannot read would destroy the saved settings, so keep the file for inspection.
+        closeChannel();
+        Path unreadable = file.resolveSibling(FILE_NAME + ".bad-" + System.currentTimeMillis());
+        Files.move(file, unreadable);
+        LOGGER.atWarning().log("Moved unreadable preference store to " + unreadable + " (" + problem + "), starting empty");
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        initialize(channel, INITIAL_CAPACITY);
+        capacity = INITIAL_CAPACITY;
+        used = 0;
+    }
+
+    /**
+     * Reads and validates the header into {@link #capacity} and {@link #used}. Returns {@code null} if the file is
+     * usable, otherwise what is wrong with it.
+     */
+    @Nullable
+    private String readHeader() throws IOException {
+        header.clear();
+        channel.read(header, 0L);
+        header.flip();
+        int magic = header.getInt();
+        int version = header.getInt();
+        int tableCapacity = header.getInt();
+        int tableUsed = header.getInt();
+        if (magic != MAGIC) {
+            return "unrecognised format";
+        }
+        if (version != VERSION) {
+            return "unsupported version " + version;
+        }
+        if (tableCapacity <= 0 || tableUsed < 0 || tableUsed > tableCapacity) {
+            return "invalid table size " + tableUsed + "/" + tableCapacity;
+        }
+        if (channel.size() < recordOffset(tableCapacity)) {
+            return "truncated table";
+        }
+        capacity = tableCapacity;
+        used = tableUsed;
+        return null;
+    }
+
+    private PlayerLightState read(@Nonnull UUID playerUuid) throws IOException {
+        if (channel == null) {
+            return PlayerLightState.EMPTY;
+        }
+
+        int slot = probeStart(playerUuid, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            readRecord(channel, slot);
+            int flags = record.getInt(28);
+            if ((flags & (FLAG_OCCUPIED | FLAG_DELETED)) == 0) {
+                return PlayerLightState.EMPTY;
+            }
+            if ((flags & FLAG_OCCUPIED) != 0 && matches(playerUuid)) {
+                float flicker = ((flags >>> FLICKER_SHIFT) & 0xFF) / 255.0f;
+                boolean auto = (flags & FLAG_AUTO) != 0;
+                // Preset ids depend on the config, so they are not stored; the service re-links matching values.
+                float brightness = record.getFloat(16);
+                int tintRgb = record.getInt(20);
+                float warmth = record.getFloat(24);
+                return new PlayerLightState(brightness, tintRgb, warmth, flicker, auto, PlayerLightState.NO_PRESET);
+            }
+            slot = (slot + 1) % capacity;
+        }
+        return PlayerLightState.EMPTY;
+    }
+
+    private void write(@Nonnull UUID playerUuid, @Nonnull PlayerLightState state) throws IOException {
+        if (!state.isEmpty() && (used + 1) * 10 > capacity * 7) {
+            grow();
+        }
+
+        int slot = probeStart(playerUuid, capacity);
+        int firstFree = -1;
+        for (int probes = 0; probes < capacity; probes++) {
+            readRecord(channel, slot);
+            int flags = record.getInt(28);
+            if ((flags & FLAG_OCCUPIED) != 0 && matches(playerUuid)) {
+                if (state.isEmpty()) {
+                    writeRecord(channel, slot, playerUuid, state, FLAG_DELETED);
+                } else {
+                    writeRecord(channel, slot, playerUuid, state, FLAG_OCCUPIED);
+                }
+                return;
+            }
+            if ((flags & FLAG_OCCUPIED) == 0 && firstFree < 0) {
+                firstFree = slot;
+            }
+            if ((flags & (FLAG_OCCUPIED | FLAG_DELETED)) == 0) {
+                break;
+            }
+            slot = (slot + 1) % capacity;
+        }
+
+        if (state.isEmpty() || firstFree < 0) {
+            return;
+        }
+        readRecord(channel, firstFree);
+        if ((record.getInt(28) & FLAG_DELETED) == 0) {
+            used++;
+        }
+        writeRecord(channel, firstFree, playerUuid, state, FLAG_OCCUPIED);
+    }
+
+    /**
+     * Rehashes into a file twice the size and swaps it in atomically. Tombstones are dropped along the way.
+     */
+    private void grow() throws IOException {
+        int newCapacity = capacity * 2;
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        int newUsed = 0;
+        try (FileChannel target = FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        )) {
+            initialize(target, newCapacity);
+            ByteBuffer moved = ByteBuffer.allocate(RECORD_BYTES);
+            for (int slot = 0; slot < capacity; slot++) {
+                readRecord(channel, slot);
+                if ((record.getInt(28) & FLAG_OCCUPIED) == 0) {
+                    continue;
+                }
+                UUID playerUuid = new UUID(record.getLong(0), record.getLong(8));
+                int targetSlot = probeStart(playerUuid, newCapacity);
+                while (true) {
+                    moved.clear();
+                    target.read(moved, recordOffset(targetSlot));
+                    if ((moved.getInt(28) & FLAG_OCCUPIED) == 0) {
+                        break;
+                    }
+                    targetSlot = (targetSlot + 1) % newCapacity;
+                }
+                record.rewind();
+                target.write(record, recordOffset(targetSlot));
+                newUsed++;
+            }
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(newCapacity).putInt(newUsed).flip();
+            target.write(header, 0L);
+            target.force(true);
+        }
+
+        closeChannel();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        capacity = newCapacity;
+        used = newUsed;
+    }
+
+    private void initialize(@Nonnull FileChannel target, int tableCapacity) throws IOException {
+        target.truncate(0L);
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putInt(tableCapacity).putInt(0).flip();
+        target.write(header, 0L);
+        // Extending the file with a single write leaves the table zero-filled, i.e. every slot empty.
+        ByteBuffer last = ByteBuffer.allocate(1);
+        target.write(last, HEADER_BYTES + (long) tableCapacity * RECORD_BYTES - 1);
+    }
+
+    private void writeHeader() throws IOException {
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putInt(capacity).putInt(used).flip();
+        channel.write(header, 0L);
+    }
+
+    private void readRecord(@Nonnull FileChannel source, int slot) throws IOException {
+        record.clear();
+        source.read(record, recordOffset(slot));
+    }
+
+    private void writeRecord(
+        @Nonnull FileChannel target,
+        int slot,
+        @Nonnull UUID playerUuid,
+        @Nonnull PlayerLightState state,
+        int flags
+    ) throws IOException {
+        record.clear();
+        record.putLong(playerUuid.getMostSignificantBits())
+            .putLong(playerUuid.getLeastSignificantBits())
+            .putFloat(state.brightness())
+            .putInt(state.tintRgb())
+            .putFloat(state.warmth())
+            .putInt(flags | Math.round(LightMath.clamp(state.flicker(), 0.0f, 1.0f) * 255.0f) << FLICKER_SHIFT
+                | (state.auto() ? FLAG_AUTO : 0))
+            .flip();
+        target.write(record, recordOffset(slot));
+    }
+
+    private boolean matches(@Nonnull UUID playerUuid) {
+        return record.getLong(0) == playerUuid.getMostSignificantBits()
+            && record.getLong(8) == playerUuid.getLeastSignificantBits();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Unable to close preference store " + file);
+        }
+        channel = null;
+    }
+
+    private static int probeStart(@Nonnull UUID playerUuid, int tableCapacity) {
+        long mixed = (playerUuid.getMostSignificantBits() ^ playerUuid.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 1) % tableCapacity);
+    }
+
+    private static long recordOffset(int slot) {
+        return HEADER_BYTES + (long) slot * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.plugin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the runtime light state of players who just left, so a quick reconnect restores their light without reloading
+ * settings or rescanning the utility belt. Entries live for a fixed TTL, so insertion order is expiry order and a
+ * single FIFO queue acts as the expiry queue: one periodic {@link #expire} sweep pops expired heads, with no task per
+ * entry. The cache is capped; beyond the cap the oldest entries are evicted first. Operations are short and rare
+ * (joins and leaves), so a single lock guards everything.
+ */
+final class ReconnectGraceCache {
+
+    /**
+     * Light state captured when a player's entity left its world.
+     *
+     * @param playerUuid the departed player
+     * @param settings the player's settings at the time
+     * @param torchSlots utility-belt slots holding light sources
+     * @param torchSlotsKnown whether {@code torchSlots} was up to date
+     * @param appliedLight the boost light the player had, {@link LightMath#NONE} if none
+     * @param expiresAtNanos {@link System#nanoTime()} after which the entry is dropped
+     */
+    record Entry(
+        @Nonnull UUID playerUuid,
+        @Nonnull PlayerLightState settings,
+        long torchSlots,
+        boolean torchSlotsKnown,
+        int appliedLight,
+        long expiresAtNanos
+    ) {
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    /**
+     * Entries in insertion (= expiry) order. Taken or replaced entries stay queued until they reach the head.
+     */
+    private final ArrayDeque<Entry> expiryQueue = new ArrayDeque<>();
+
+    private long restored;
+    private long expired;
+    private long evicted;
+
+    ReconnectGraceCache(long ttlNanos, int maxEntries) {
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+    }
+
+    boolean isEnabled() {
+        return ttlNanos > 0L && maxEntries > 0;
+    }
+
+    /**
+     * Remembers a departing player's light state, replacing any older entry for them.
+     */
+    synchronized void put(
+        @Nonnull UUID playerUuid,
+        @Nonnull PlayerLightState settings,
+        long torchSlots,
+        boolean torchSlotsKnown,
+        int appliedLight,
+        long nowNanos
+    ) {
+        if (!isEnabled()) {
+            return;
+        }
+        Entry entry = new Entry(playerUuid, settings, torchSlots, torchSlotsKnown, appliedLight, nowNanos + ttlNanos);
+        entries.put(playerUuid, entry);
+        expiryQueue.addLast(entry);
+        while (entries.size() > maxEntries || expiryQueue.size() > maxEntries * 2) {
+            Entry oldest = expiryQueue.pollFirst();
+            if (entries.remove(oldest.playerUuid(), oldest)) {
+                evicted++;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns a player's entry if it has not expired yet.
+     */
+    @Nullable
+    synchronized Entry take(@Nonnull UUID playerUuid, long nowNanos) {
+        Entry entry = entries.remove(playerUuid);
+        if (entry == null || entry.expiresAtNanos() - nowNanos <= 0L) {
+            return null;
+        }
+        restored++;
+        return entry;
+    }
+
+    /**
+     * Drops every entry whose TTL has passed.
+     */
+    synchronized void expire(long nowNanos) {
+        Entry head;
+        while ((head = expiryQueue.peekFirst()) != null && head.expiresAtNanos() - nowNanos <= 0L) {
+            expiryQueue.pollFirst();
+            if (entries.remove(head.playerUuid(), head)) {
+                expired++;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Formats the cache counters for the stats report.
+     */
+    @Nonnull
+    synchronized String summary() {
+        return entries.size() + "/" + maxEntries + " held, restored=" + restored + " expired=" + expired + " evicted=" + evicted;
+    }
+}
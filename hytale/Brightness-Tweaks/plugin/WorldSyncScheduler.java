@@ -0,0 +1,177 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalesces sync requests into one batched task per world. Requests only mark a player dirty; the first request after a
+ * drain queues a single {@code world.execute} task that syncs every dirty player on the next tick. A world's queue is
+ * dropped once a drain leaves it idle, so unloaded worlds are not kept reachable. Generic over the world type so the
+ * load simulator can drive it with stand-in worlds.
+ *
+ * @param <W> the world type
+ */
+final class WorldSyncScheduler<W> {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final BiConsumer<W, Runnable> execute;
+    private final BiConsumer<W, UUID> syncOnWorldThread;
+    private final LatencyHistogram queueDelay;
+    private final ConcurrentMap<W, WorldQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder drains = new LongAdder();
+
+    /**
+     * Creates the scheduler. {@code queueDelay} receives, once per drain, the time since the request that scheduled it,
+     * i.e. the wait of the oldest request in the batch.
+     */
+    WorldSyncScheduler(
+        @Nonnull BiConsumer<W, Runnable> execute,
+        @Nonnull BiConsumer<W, UUID> syncOnWorldThread,
+        @Nonnull LatencyHistogram queueDelay
+    ) {
+        this.execute = execute;
+        this.syncOnWorldThread = syncOnWorldThread;
+        this.queueDelay = queueDelay;
+    }
+
+    /**
+     * Marks a player dirty in the given world. Safe to call from any thread. If the world rejects the drain task, the
+     * queue is dropped so a later request can schedule again, and the exception is rethrown.
+     */
+    void markDirty(@Nonnull W world, @Nonnull UUID playerUuid) {
+        requested.increment();
+        // compute() orders the add against an idle queue being dropped at the end of a drain. The task itself is
+        // handed to the world outside of compute(), so foreign code never runs under the map's bin lock.
+        boolean[] schedule = new boolean[1];
+        WorldQueue queue = queues.compute(world, (key, current) -> {
+            WorldQueue target = current == null ? new WorldQueue(key) : current;
+            schedule[0] = target.add(playerUuid);
+            return target;
+        });
+        if (schedule[0]) {
+            queue.schedule();
+        }
+    }
+
+    /**
+     * Drops any pending sync for a player (used on disconnect).
+     */
+    void forget(@Nonnull UUID playerUuid) {
+        for (WorldQueue queue : queues.values()) {
+            queue.dirty.remove(playerUuid);
+        }
+    }
+
+    /**
+     * Drops a player's pending sync in one world (used when the player moved to another world).
+     */
+    void forget(@Nonnull W world, @Nonnull UUID playerUuid) {
+        WorldQueue queue = queues.get(world);
+        if (queue != null) {
+            queue.dirty.remove(playerUuid);
+        }
+    }
+
+    /**
+     * Returns the number of players waiting for the next drain in a world.
+     */
+    int pendingCount(@Nonnull W world) {
+        WorldQueue queue = queues.get(world);
+        return queue == null ? 0 : queue.dirty.size();
+    }
+
+    long requestedCount() {
+        return requested.sum();
+    }
+
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    long executedCount() {
+        return executed.sum();
+    }
+
+    long drainCount() {
+        return drains.sum();
+    }
+
+    private final class WorldQueue {
+
+        private final W world;
+        private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long scheduledAtNanos;
+
+        private WorldQueue(@Nonnull W world) {
+            this.world = world;
+        }
+
+        /**
+         * Adds a dirty player and returns whether the caller must schedule the drain.
+         */
+        private boolean add(@Nonnull UUID playerUuid) {
+            if (!dirty.add(playerUuid)) {
+                coalesced.increment();
+                return false;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                scheduledAtNanos = System.nanoTime();
+                return true;
+            }
+            return false;
+        }
+
+        private void schedule() {
+            try {
+                execute.accept(world, this::drain);
+            } catch (RuntimeException e) {
+                // Without a drain the flag would never clear and the queue would never be dropped.
+                scheduled.set(false);
+                queues.remove(world, this);
+                throw e;
+            }
+        }
+
+        private void drain() {
+            // Clear the flag before draining so a request racing with this drain either gets picked up by the
+            // iterator below or schedules the next task.
+            long scheduledAt = scheduledAtNanos;
+            scheduled.set(false);
+            drains.increment();
+            queueDelay.recordSince(scheduledAt);
+
+            Iterator<UUID> iterator = dirty.iterator();
+            while (iterator.hasNext()) {
+                UUID playerUuid = iterator.next();
+                iterator.remove();
+                executed.increment();
+                try {
+                    syncOnWorldThread.accept(world, playerUuid);
+                } catch (RuntimeException e) {
+                    // One broken entity must not strand the rest of the batch.
+                    LOGGER.atWarning().withCause(e).log("Batched brightness sync failed for " + playerUuid);
+                }
+            }
+            queues.computeIfPresent(world, (key, current) -> current == this && isIdle() ? null : current);
+        }
+
+        private boolean isIdle() {
+            return dirty.isEmpty() && !scheduled.get();
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package org.example.plugin;
+
+import com.hypixel.hytale.protocol.ColorLight;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load simulator for the brightness pipeline. Hytale's {@code World}, {@code Store} and {@code Inventory}
+ * cannot be built without a running server, so each world is a stand-in with its own tick thread and task queue, the
+ * containers are item-id arrays and the {@code DynamicLight} is a plain field. Everything that decides how the plugin
+ * behaves under load is the production code: the coalescing {@link WorldSyncScheduler}, settings snapshots,
+ * {@link PreferenceStore} (on a temp file), the {@link LightPipeline} steps (belt tracking, settings pushes, target
+ * lights) on a {@link LightProfile}, the {@link LoadGovernor}, the {@link LightDensityGrid} and the
+ * {@link ReconnectGraceCache}. The glue here only routes events between them the way {@link BrightnessService} does.
+ * <p>
+ * The script runs for a fixed time and mixes random inventory churn (utility belt and hotbar), command spam
+ * (brightness, tint, warmth changes, coalesced to one pending command per player), world changes and one disconnect
+ * storm halfway through, after which most players reconnect within the grace period and the rest after it. Results go
+ * to a JSON file for comparing plugin versions.
+ * <p>
+ * Usage: {@code BrightnessLoadSimulator [--players 5000] [--worlds 4] [--seconds 60] [--tps 30] [--churn 0.02]
+ * [--commands 0.005] [--migrate 0.0005] [--storm 0.3] [--seed 1] [--label dev] [--out brightness-sim.json]}
+ */
+public final class BrightnessLoadSimulator {
+
+    private static final int UTILITY_SLOTS = 4;
+    private static final String TORCH = "Furniture_Crude_Torch";
+    private static final String LANTERN = "Furniture_Lantern";
+    private static final String ROCK = "Rock_Stone";
+    private static final int GRACE_SECONDS = 30;
+    private static final int RECONNECT_DELAY_SECONDS = 5;
+    private static final DensitySettings DENSITY = BrightnessConfig.defaults().densitySettings();
+    private static final GovernorSettings GOVERNOR = BrightnessConfig.defaults().governorSettings();
+    private static final LightPipeline.SlotClassifier<String[]> SLOTS =
+        (lightSources, container, slot) -> container[slot] == null ? LightSource.NONE : lightSources.classify(container[slot]);
+
+    private final Options options;
+    private final SplittableRandom random;
+    private final ConcurrentHashMap<UUID, PlayerLightState> states = new ConcurrentHashMap<>();
+    /**
+     * Players with a command not yet picked up by a batched sync, as in the service.
+     */
+    private final Set<UUID> pendingCommands = ConcurrentHashMap.newKeySet();
+    private final LightProfile profile;
+    private final BrightnessMetrics metrics = new BrightnessMetrics();
+    private final ReconnectGraceCache graceCache = new ReconnectGraceCache(TimeUnit.SECONDS.toNanos(GRACE_SECONDS), 10_000);
+    private final ScheduledExecutorService ioExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sim-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PreferenceStore preferenceStore;
+
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+    private final LatencyHistogram tickTime = new LatencyHistogram();
+    private final WorldSyncScheduler<SimWorld> scheduler = new WorldSyncScheduler<>(
+        SimWorld::execute,
+        this::syncOnWorldThread,
+        queueDelay
+    );
+
+    private final LongAdder syncsRequested = new LongAdder();
+    private final LongAdder syncsExecuted = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+    private final LongAdder inventoryEvents = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder worldChanges = new LongAdder();
+    private final LongAdder staleSyncs = new LongAdder();
+    private final LongAdder lightWrites = new LongAdder();
+    private final LongAdder skippedLightWrites = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder graceRestores = new LongAdder();
+    private final LongAdder storeLoads = new LongAdder();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final LongAdder queueDepthSum = new LongAdder();
+    private final LongAdder queueDepthSamples = new LongAdder();
+
+    private final SimWorld[] worlds;
+    private final SimPlayer[] players;
+    private final Map<UUID, SimPlayer> playersByUuid = new HashMap<>();
+
+    private BrightnessLoadSimulator(@Nonnull Options options, @Nonnull Path dataDirectory) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed());
+        LightTuning tuning = LightTuning.DEFAULT;
+        this.profile = new LightProfile(
+            tuning,
+            new LightSourceRegistry(
+                Map.of(TORCH, LightSource.parse("12 #FFC890"), LANTERN, LightSource.parse("16 #FFE0B0"), ROCK, LightSource.NONE),
+                false
+            ),
+            new ColorLightCache(4096, tuning),
+            new LightPresets(Map.of(), tuning)
+        );
+        this.preferenceStore = new PreferenceStore(dataDirectory, ioExecutor);
+        this.worlds = new SimWorld[options.worlds()];
+        for (int i = 0; i < worlds.length; i++) {
+            worlds[i] = new SimWorld(i);
+        }
+        this.players = new SimPlayer[options.players()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new SimPlayer(new UUID(random.nextLong(), random.nextLong()));
+            playersByUuid.put(players[i].uuid, players[i]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Path dataDirectory = Files.createTempDirectory("brightness-sim");
+        BrightnessLoadSimulator simulator = new BrightnessLoadSimulator(options, dataDirectory);
+        String result = simulator.run();
+        Files.writeString(options.out(), result);
+        System.out.println(result);
+        System.out.println("Wrote " + options.out().toAbsolutePath());
+    }
+
+    @Nonnull
+    private String run() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        preferenceStore.start(1L);
+        for (SimWorld world : worlds) {
+            world.start(options.tps());
+        }
+        for (SimPlayer player : players) {
+            join(player, worlds[random.nextInt(worlds.length)]);
+        }
+
+        long tickNanos = TimeUnit.SECONDS.toNanos(1L) / options.tps();
+        long totalTicks = (long) options.seconds() * options.tps();
+        long stormTick = totalTicks / 2;
+        long reconnectTick = stormTick + (long) RECONNECT_DELAY_SECONDS * options.tps();
+        long lateReconnectTick = stormTick + (long) (GRACE_SECONDS + 2) * options.tps();
+        List<SimPlayer> stormed = new ArrayList<>();
+        long peakHeap = 0L;
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt;
+        for (long tick = 0; tick < totalTicks; tick++) {
+            deadline += tickNanos;
+            churnInventories();
+            spamCommands();
+            changeWorlds();
+            if (tick == stormTick) {
+                disconnectStorm(stormed);
+            } else if (tick == reconnectTick) {
+                reconnect(stormed, 0.8);
+            } else if (tick == lateReconnectTick) {
+                reconnect(stormed, 1.0);
+            }
+            if (tick % options.tps() == 0) {
+                graceCache.expire(System.nanoTime());
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            }
+            LockSupport.parkNanos(deadline - System.nanoTime());
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        for (SimWorld world : worlds) {
+            world.stop();
+        }
+        preferenceStore.close();
+        ioExecutor.shutdown();
+        System.gc();
+        long heapAfterGc = memory.getHeapMemoryUsage().getUsed();
+        return report(elapsedNanos, peakHeap, heapAfterGc);
+    }
+
+    private void churnInventories() {
+        int events = Math.max(1, (int) Math.round(players.length * options.churnRate()));
+        for (int i = 0; i < events; i++) {
+            SimPlayer player = players[random.nextInt(players.length)];
+            SimWorld world = player.world;
+            if (world == null) {
+                continue;
+            }
+            String[] container = random.nextInt(4) == 0 ? player.hotbar : player.utility;
+            int slot = random.nextInt(UTILITY_SLOTS);
+            String item = switch (random.nextInt(4)) {
+                case 0 -> TORCH;
+                case 1 -> LANTERN;
+                case 2 -> ROCK;
+                default -> null;
+            };
+            inventoryEvents.increment();
+            world.execute(() -> onInventoryChange(player, container, slot, item));
+        }
+    }
+
+    private void spamCommands() {
+        int count = (int) Math.round(players.length * options.commandRate());
+        for (int i = 0; i < count; i++) {
+            SimPlayer player = players[random.nextInt(players.length)];
+            SimWorld world = player.world;
+            if (world == null) {
+                continue;
+            }
+            PlayerLightState current = states.getOrDefault(player.uuid, PlayerLightState.EMPTY);
+            PlayerLightState next = switch (random.nextInt(4)) {
+                case 0 -> current.withBrightness(0.1f + 0.9f * random.nextInt(10) / 9.0f);
+                case 1 -> current.withTintRgb(random.nextInt(0x1000000));
+                case 2 -> current.withWarmth(random.nextInt(5) / 4.0f);
+                default -> current.withBrightness(Float.NaN);
+            };
+            commands.increment();
+            if (next.isEmpty()) {
+                states.remove(player.uuid);
+            } else {
+                states.put(player.uuid, next);
+            }
+            preferenceStore.save(player.uuid, next);
+            if (!pendingCommands.add(player.uuid)) {
+                metrics.commandsSuperseded.increment();
+            }
+            requestSync(world, player.uuid);
+        }
+    }
+
+    /**
+     * Moves a few players to another world. The old entity leaves on its world thread first, handing its light state to
+     * the grace cache, then the player joins the new world, as on a real world change.
+     */
+    private void changeWorlds() {
+        if (worlds.length < 2) {
+            return;
+        }
+        int count = (int) Math.round(players.length * options.migrateRate());
+        for (int i = 0; i < count; i++) {
+            SimPlayer player = players[random.nextInt(players.length)];
+            SimWorld from = player.world;
+            if (from == null) {
+                continue;
+            }
+            SimWorld to = worlds[(from.index + 1 + random.nextInt(worlds.length - 1)) % worlds.length];
+            // In transit until the join runs, so neither another world change nor the storm picks the player up.
+            player.world = null;
+            worldChanges.increment();
+            scheduler.forget(from, player.uuid);
+            from.execute(() -> {
+                from.removeEntity(player);
+                join(player, to);
+            });
+        }
+    }
+
+    private void disconnectStorm(@Nonnull List<SimPlayer> stormed) {
+        for (SimPlayer player : players) {
+            SimWorld world = player.world;
+            if (world == null || random.nextDouble() >= options.stormFraction()) {
+                continue;
+            }
+            player.world = null;
+            stormed.add(player);
+            disconnects.increment();
+            states.remove(player.uuid);
+            pendingCommands.remove(player.uuid);
+            scheduler.forget(player.uuid);
+            world.execute(() -> world.removeEntity(player));
+        }
+    }
+
+    private void reconnect(@Nonnull List<SimPlayer> stormed, double fraction) {
+        List<SimPlayer> remaining = new ArrayList<>();
+        for (SimPlayer player : stormed) {
+            if (random.nextDouble() < fraction) {
+                join(player, worlds[random.nextInt(worlds.length)]);
+            } else {
+                remaining.add(player);
+            }
+        }
+        stormed.clear();
+        stormed.addAll(remaining);
+    }
+
+    /**
+     * Routes a join like {@code BrightnessService.onPlayerAddedToWorld}: grace entries restore in one world task,
+     * everyone else loads saved settings from the preference store and syncs through the scheduler.
+     */
+    private void join(@Nonnull SimPlayer player, @Nonnull SimWorld world) {
+        player.world = world;
+        ReconnectGraceCache.Entry grace = graceCache.take(player.uuid, System.nanoTime());
+        if (grace != null) {
+            graceRestores.increment();
+            states.putIfAbsent(player.uuid, grace.settings());
+            world.execute(() -> world.restoreEntity(player, grace));
+            return;
+        }
+
+        world.execute(() -> world.addEntity(player));
+        if (!player.seeded) {
+            player.seeded = true;
+            float brightness = 0.25f + 0.75f * random.nextInt(16) / 15.0f;
+            PlayerLightState initial = PlayerLightState.EMPTY.withBrightness(brightness);
+            states.put(player.uuid, initial);
+            preferenceStore.save(player.uuid, initial);
+            requestSync(world, player.uuid);
+            return;
+        }
+        storeLoads.increment();
+        preferenceStore.load(player.uuid).thenAccept(saved -> {
+            if (!saved.isEmpty() && player.world == world && states.putIfAbsent(player.uuid, saved) == null) {
+                requestSync(world, player.uuid);
+            }
+        });
+    }
+
+    private void requestSync(@Nonnull SimWorld world, @Nonnull UUID playerUuid) {
+        syncsRequested.increment();
+        scheduler.markDirty(world, playerUuid);
+    }
+
+    /**
+     * Batched sync for one player, routed like {@code BrightnessService.syncOnWorldThread}: syncs queued in a world the
+     * player has since left hand a pending command to their current world, and a command whose push found no entity
+     * stays pending.
+     */
+    private void syncOnWorldThread(@Nonnull SimWorld world, @Nonnull UUID playerUuid) {
+        SimWorld current = playersByUuid.get(playerUuid).world;
+        if (current != null && current != world) {
+            staleSyncs.increment();
+            if (pendingCommands.contains(playerUuid)) {
+                requestSync(current, playerUuid);
+            }
+            return;
+        }
+        boolean command = pendingCommands.remove(playerUuid);
+        if (!pushSettings(world.entities.get(playerUuid), command) && command) {
+            pendingCommands.add(playerUuid);
+        }
+    }
+
+    private boolean pushSettings(@Nullable SimPlayer player, boolean announce) {
+        syncsExecuted.increment();
+        if (player == null) {
+            syncFailures.increment();
+            return false;
+        }
+        PlayerLightState settings = states.getOrDefault(player.uuid, PlayerLightState.EMPTY);
+        player.preference = LightPipeline.pushSettings(player.preference, settings, announce, false);
+        return true;
+    }
+
+    /**
+     * Routes one container change through the belt filter and torch tracking, like
+     * {@code BrightnessService.onInventoryChange}.
+     */
+    private void onInventoryChange(@Nonnull SimPlayer player, @Nonnull String[] container, int slot, @Nullable String item) {
+        container[slot] = item;
+        BrightnessPreference preference = player.preference;
+        if (preference == null) {
+            return;
+        }
+        LightPipeline.BeltChange change = LightPipeline.beltChange(container, player.utility, player.hotbar, null, null, null);
+        if (change == LightPipeline.BeltChange.UNKNOWN) {
+            LightPipeline.forgetBelt(preference);
+        } else if (change == LightPipeline.BeltChange.SLOTS) {
+            LightPipeline.beltChanged(preference, profile, player.utility, UTILITY_SLOTS, SLOTS, 1L << slot, metrics);
+        }
+    }
+
+    /**
+     * Runs the light system's apply path (belt tracking, combined light sources, auto mode, density attenuation,
+     * presets, cached light and the governor's radius cap), then writes the stand-in light unless it is unchanged.
+     */
+    private void applyLight(@Nonnull SimPlayer player, @Nonnull BrightnessPreference preference, int radiusCap) {
+        preference.consumeDirty();
+        preference.setRadiusCap(radiusCap);
+        PlayerLightState settings = preference.settings();
+        if (!settings.hasBrightness()) {
+            preference.setApplied(LightMath.NONE, LightMath.NONE);
+            player.light = null;
+            player.preference = null;
+            return;
+        }
+
+        long torchSlots = LightPipeline.prepareBelt(preference, profile, player.utility, UTILITY_SLOTS, SLOTS, metrics);
+        if (torchSlots == 0L) {
+            preference.setApplied(LightMath.NONE, LightMath.NONE);
+            player.light = null;
+            return;
+        }
+
+        int baseline = preference.lightMix().combined();
+        LightTuning tuning = profile.tuning();
+        int level = LightPipeline.brightnessLevel(settings, preference, tuning, DENSITY);
+        int tint = LightMath.resolveTintRgb(baseline, settings.tintRgb(), LightMath.warmthLevel(settings.warmth()), tuning);
+        ColorLight target = LightPipeline.targetLight(profile, settings, preference, level, baseline, tint, metrics);
+        int targetLight = LightMath.pack(target);
+        preference.consumeRestoredLight();
+        if (player.light != null && LightMath.pack(player.light) == targetLight) {
+            skippedLightWrites.increment();
+        } else {
+            player.light = target;
+            lightWrites.increment();
+        }
+        preference.setApplied(baseline, targetLight);
+    }
+
+    @Nonnull
+    private String report(long elapsedNanos, long peakHeap, long heapAfterGc) {
+        double seconds = elapsedNanos / 1.0e9;
+        long depthSamples = Math.max(1L, queueDepthSamples.sum());
+        long ticks = 0L;
+        StringBuilder perWorld = new StringBuilder();
+        StringBuilder governors = new StringBuilder();
+        for (SimWorld world : worlds) {
+            ticks += world.ticks;
+            if (perWorld.length() > 0) {
+                perWorld.append(", ");
+                governors.append(", ");
+            }
+            perWorld.append('"').append(world.name).append("\": ").append(world.ticks);
+            governors.append('"').append(world.name).append("\": \"").append(world.governor.quality()).append('"');
+        }
+
+        return "{\n"
+            + "  \"label\": \"" + options.label() + "\",\n"
+            + "  \"options\": {\"players\": " + options.players() + ", \"worlds\": " + options.worlds() + ", \"seconds\": "
+            + options.seconds() + ", \"tps\": " + options.tps() + ", \"churnRate\": " + options.churnRate() + ", \"commandRate\": "
+            + options.commandRate() + ", \"migrateRate\": " + options.migrateRate() + ", \"stormFraction\": "
+            + options.stormFraction() + ", \"seed\": " + options.seed() + "},\n"
+            + "  \"elapsedSeconds\": " + round(seconds) + ",\n"
+            + "  \"ticks\": {\"total\": " + ticks + ", \"expected\": " + (long) options.seconds() * options.tps() * worlds.length
+            + ", \"perWorld\": {" + perWorld + "}},\n"
+            + "  \"throughput\": {\"syncsRequestedPerSecond\": " + round(syncsRequested.sum() / seconds)
+            + ", \"syncsExecutedPerSecond\": " + round(syncsExecuted.sum() / seconds)
+            + ", \"inventoryEventsPerSecond\": " + round(inventoryEvents.sum() / seconds)
+            + ", \"commandsPerSecond\": " + round(commands.sum() / seconds)
+            + ", \"lightWritesPerSecond\": " + round(lightWrites.sum() / seconds) + "},\n"
+            + "  \"counts\": {\"syncsRequested\": " + syncsRequested.sum() + ", \"syncsExecuted\": " + syncsExecuted.sum()
+            + ", \"syncsCoalesced\": " + scheduler.coalescedCount() + ", \"syncFailures\": " + syncFailures.sum()
+            + ", \"lightWrites\": " + lightWrites.sum() + ", \"skippedLightWrites\": " + skippedLightWrites.sum()
+            + ", \"disconnects\": " + disconnects.sum() + ", \"graceRestores\": " + graceRestores.sum()
+            + ", \"storeLoads\": " + storeLoads.sum() + ", \"commandsSuperseded\": " + metrics.commandsSuperseded.sum()
+            + ", \"worldChanges\": " + worldChanges.sum() + ", \"staleSyncs\": " + staleSyncs.sum()
+            + ", \"utilityScans\": " + metrics.utilityScans.sum() + "},\n"
+            + "  \"queueDepth\": {\"max\": " + maxQueueDepth.get() + ", \"mean\": " + round(queueDepthSum.sum() / (double) depthSamples)
+            + "},\n"
+            + "  \"queueDelayMicros\": " + histogram(queueDelay) + ",\n"
+            + "  \"tickTimeMicros\": " + histogram(tickTime) + ",\n"
+            + "  \"lightCache\": {\"size\": " + profile.lightCache().size() + ", \"hitRate\": "
+            + round(profile.lightCache().hitRate()) + "},\n"
+            + "  \"governor\": {" + governors + "},\n"
+            + "  \"heap\": {\"peakUsedBytes\": " + peakHeap + ", \"usedAfterGcBytes\": " + heapAfterGc + "}\n"
+            + "}\n";
+    }
+
+    @Nonnull
+    private static String histogram(@Nonnull LatencyHistogram histogram) {
+        return "{\"count\": " + histogram.count() + ", \"mean\": " + histogram.meanMicros()
+            + ", \"p50\": " + histogram.percentileMicros(0.50) + ", \"p99\": " + histogram.percentileMicros(0.99)
+            + ", \"p999\": " + histogram.percentileMicros(0.999) + ", \"max\": " + histogram.maxMicros() + "}";
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    /**
+     * Stand-in for a Hytale world: one tick thread, a task queue drained at the start of every tick (like
+     * {@code World.execute}) and the light system run over the world's entities afterwards.
+     */
+    private final class SimWorld {
+
+        private final int index;
+        private final String name;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Map<UUID, SimPlayer> entities = new HashMap<>();
+        private final LightDensityGrid grid = new LightDensityGrid();
+        private final LoadGovernor governor = new LoadGovernor();
+        private final ScheduledExecutorService thread;
+        private volatile long ticks;
+
+        private SimWorld(int index) {
+            this.index = index;
+            this.name = "world-" + index;
+            this.thread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread worldThread = new Thread(runnable, "sim-" + name);
+                worldThread.setDaemon(true);
+                return worldThread;
+            });
+        }
+
+        private void execute(@Nonnull Runnable task) {
+            tasks.add(task);
+        }
+
+        private void start(int tps) {
+            long periodNanos = TimeUnit.SECONDS.toNanos(1L) / tps;
+            thread.scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void stop() throws InterruptedException {
+            thread.shutdown();
+            thread.awaitTermination(10L, TimeUnit.SECONDS);
+        }
+
+        private void tick() {
+            long startedAt = System.nanoTime();
+            int backlog = scheduler.pendingCount(this);
+            long depth = tasks.size() + backlog;
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+            queueDepthSum.add(depth);
+            queueDepthSamples.increment();
+
+            // Tasks queued while draining run next tick, as on a real world thread.
+            for (int pending = tasks.size(); pending > 0; pending--) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+
+            governor.sample(startedAt, backlog, GOVERNOR.targetTickMillis());
+            int radiusCap = GOVERNOR.radiusCap(governor.quality());
+            for (SimPlayer player : entities.values()) {
+                BrightnessPreference preference = player.preference;
+                if (preference == null) {
+                    continue;
+                }
+                if (preference.isActive()) {
+                    player.walk();
+                    grid.place(preference, LightDensityGrid.cellKey(player.x, player.y, player.z, DENSITY.cellSize()), DENSITY.fullLightsPerCell());
+                } else if (preference.densitySlot() >= 0) {
+                    grid.remove(preference, DENSITY.fullLightsPerCell());
+                }
+                if (preference.isDirty()) {
+                    applyLight(player, preference, radiusCap);
+                }
+            }
+            ticks++;
+            tickTime.recordSince(startedAt);
+        }
+
+        private void addEntity(@Nonnull SimPlayer player) {
+            player.preference = null;
+            player.light = null;
+            entities.put(player.uuid, player);
+        }
+
+        private void restoreEntity(@Nonnull SimPlayer player, @Nonnull ReconnectGraceCache.Entry grace) {
+            addEntity(player);
+            PlayerLightState settings = states.getOrDefault(player.uuid, PlayerLightState.EMPTY);
+            if (settings.hasBrightness()) {
+                player.preference = LightPipeline.restorePreference(settings, grace);
+            }
+        }
+
+        /**
+         * Stand-in for the lifecycle system: remember the light state, leave the density grid, drop the entity.
+         */
+        private void removeEntity(@Nonnull SimPlayer player) {
+            entities.remove(player.uuid);
+            BrightnessPreference preference = player.preference;
+            if (preference == null) {
+                return;
+            }
+            if (!preference.settings().isEmpty()) {
+                graceCache.put(
+                    player.uuid,
+                    preference.settings(),
+                    preference.torchSlots(),
+                    preference.torchSlotsKnown(),
+                    preference.appliedLight(),
+                    System.nanoTime()
+                );
+            }
+            if (preference.densitySlot() >= 0) {
+                grid.remove(preference, DENSITY.fullLightsPerCell());
+            }
+            player.preference = null;
+        }
+    }
+
+    /**
+     * A simulated player. Entity fields are only touched on the owning world's thread.
+     */
+    private static final class SimPlayer {
+
+        private final UUID uuid;
+        private final String[] utility = {TORCH, ROCK, null, null};
+        private final String[] hotbar = {ROCK, null, null, null};
+        private volatile SimWorld world;
+        private boolean seeded;
+        private BrightnessPreference preference;
+        private ColorLight light;
+        private double x;
+        private double y = 64.0;
+        private double z;
+        private int step;
+
+        private SimPlayer(@Nonnull UUID uuid) {
+            this.uuid = uuid;
+            this.x = (uuid.getMostSignificantBits() & 0x3FF) - 512;
+            this.z = (uuid.getLeastSignificantBits() & 0x3FF) - 512;
+        }
+
+        /**
+         * Cheap deterministic random walk so players cross density cells now and then.
+         */
+        private void walk() {
+            step++;
+            x += ((step * 0x9E3779B9 + uuid.hashCode()) & 3) - 1.5;
+            z += ((step * 0x85EBCA6B ^ uuid.hashCode()) & 3) - 1.5;
+        }
+    }
+
+    private record Options(
+        int players,
+        int worlds,
+        int seconds,
+        int tps,
+        double churnRate,
+        double commandRate,
+        double migrateRate,
+        double stormFraction,
+        long seed,
+        @Nonnull String label,
+        @Nonnull Path out
+    ) {
+
+        @Nonnull
+        static Options parse(@Nonnull String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                if (!args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Expected --option value pairs but got '" + args[i] + "'");
+                }
+                values.put(args[i].substring(2), args[i + 1]);
+            }
+            return new Options(
+                Integer.parseInt(values.getOrDefault("players", "5000")),
+                Integer.parseInt(values.getOrDefault("worlds", "4")),
+                Integer.parseInt(values.getOrDefault("seconds", "60")),
+                Integer.parseInt(values.getOrDefault("tps", "30")),
+                Double.parseDouble(values.getOrDefault("churn", "0.02")),
+                Double.parseDouble(values.getOrDefault("commands", "0.005")),
+                Double.parseDouble(values.getOrDefault("migrate", "0.0005")),
+                Double.parseDouble(values.getOrDefault("storm", "0.3")),
+                Long.parseLong(values.getOrDefault("seed", "1")),
+                values.getOrDefault("label", "dev"),
+                Path.of(values.getOrDefault("out", "brightness-sim.json"))
+            );
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.plugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreferenceStoreTest {
+
+    private static final long FLUSH_SECONDS = 3600L;
+
+    @TempDir
+    Path dataDirectory;
+
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void stopExecutor() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void movesFileWithUnknownHeaderAsideAndStartsEmpty() throws Exception {
+        byte[] original = new byte[64];
+        ByteBuffer.wrap(original).putInt(0xCAFEBABE).putInt(7);
+        Files.write(file(), original);
+        UUID player = UUID.randomUUID();
+
+        PreferenceStore store = open();
+        store.save(player, state(0.5f));
+        store.close();
+
+        List<Path> moved = movedAside();
+        assertEquals(1, moved.size());
+        assertArrayEquals(original, Files.readAllBytes(moved.get(0)));
+        assertEquals(state(0.5f), loadOnce(player));
+    }
+
+    @Test
+    void movesFileWithZeroCapacityAsideAndKeepsFlushing() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(16).putInt(0x42545031).putInt(1).putInt(0).putInt(0);
+        Files.write(file(), header.array());
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        PreferenceStore store = open();
+        store.save(first, state(0.25f));
+        store.close();
+        store = open();
+        store.save(second, state(0.75f));
+        store.close();
+
+        assertEquals(1, movedAside().size());
+        assertEquals(state(0.25f), loadOnce(first));
+        assertEquals(state(0.75f), loadOnce(second));
+    }
+
+    @Test
+    void growsPastLoadFactorAndKeepsEveryRecord() throws Exception {
+        List<UUID> players = new ArrayList<>();
+        PreferenceStore store = open();
+        for (int i = 0; i < 2000; i++) {
+            UUID player = UUID.randomUUID();
+            players.add(player);
+            store.save(player, state((i % 100) / 100.0f));
+        }
+        store.close();
+
+        assertTrue(Files.size(file()) > 16L + 1024L * 32L);
+        assertEquals(2000, headerInt(12));
+        store = open();
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(state((i % 100) / 100.0f), store.load(players.get(i)).get(10L, TimeUnit.SECONDS));
+        }
+        store.close();
+    }
+
+    @Test
+    void reusesTombstoneWhenPlayerSavesAgain() throws Exception {
+        UUID player = UUID.randomUUID();
+        PreferenceStore store = open();
+        store.save(player, state(0.5f));
+        store.close();
+
+        store = open();
+        store.save(player, PlayerLightState.EMPTY);
+        store.close();
+        assertEquals(PlayerLightState.EMPTY, loadOnce(player));
+        assertEquals(1, headerInt(12));
+
+        store = open();
+        store.save(player, state(0.9f));
+        store.close();
+        assertEquals(state(0.9f), loadOnce(player));
+        assertEquals(1, headerInt(12));
+    }
+
+    private PreferenceStore open() {
+        PreferenceStore store = new PreferenceStore(dataDirectory, executor);
+        store.start(FLUSH_SECONDS);
+        return store;
+    }
+
+    private PlayerLightState loadOnce(UUID player) throws Exception {
+        PreferenceStore store = open();
+        try {
+            return store.load(player).get(10L, TimeUnit.SECONDS);
+        } finally {
+            store.close();
+        }
+    }
+
+    private Path file() {
+        return dataDirectory.resolve(PreferenceStore.FILE_NAME);
+    }
+
+    private List<Path> movedAside() throws IOException {
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PreferenceStore.FILE_NAME + ".bad-")).toList();
+        }
+    }
+
+    private int headerInt(int offset) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file())).getInt(offset);
+    }
+
+    private static PlayerLightState state(float brightness) {
+        return PlayerLightState.EMPTY.withBrightness(brightness);
+    }
+}